@@ -0,0 +1,290 @@
+package anansi.core;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import anansi.utils.RandomSource;
+import anansi.utils.Utils;
+
+/**
+ * Immutable graph stored in the compressed sparse row format: neighbours of node i are kept in a sorted
+ * slice targets[offsets[i]..offsets[i+1]) of a single int buffer. Buffers may wrap arrays or be mapped
+ * from a file (see {@link GraphFile}). Any attempt to modify it throws an UnsupportedOperationException.
+ *
+ * @author Marcin Waniek
+ */
+public class CSRGraph extends Graph {
+
+	private IntBuffer succOffsets;
+	private IntBuffer succTargets;
+	private IntBuffer predOffsets;
+	private IntBuffer predTargets;
+
+	public CSRGraph(Graph g) {
+		super(g.getName(), g.size(), g.edgesCount(), g.isDirected());
+		int[] offsets = new int[g.size() + 1];
+		this.succTargets = IntBuffer.wrap(fill(g, offsets, i -> g.getSuccs(i)));
+		this.succOffsets = IntBuffer.wrap(offsets);
+		if (g.isDirected()) {
+			offsets = new int[g.size() + 1];
+			this.predTargets = IntBuffer.wrap(fill(g, offsets, i -> g.getPreds(i)));
+			this.predOffsets = IntBuffer.wrap(offsets);
+		} else {
+			this.predOffsets = succOffsets;
+			this.predTargets = succTargets;
+		}
+	}
+
+	/**
+	 * Graph over given buffers (neighbours of every node have to be sorted); for undirected graphs,
+	 * predecessor buffers should be null.
+	 */
+	public CSRGraph(String name, boolean directed, IntBuffer succOffsets, IntBuffer succTargets,
+			IntBuffer predOffsets, IntBuffer predTargets) {
+		super(name, succOffsets.limit() - 1, directed ? succTargets.limit() : succTargets.limit() / 2, directed);
+		this.succOffsets = succOffsets;
+		this.succTargets = succTargets;
+		this.predOffsets = directed ? predOffsets : succOffsets;
+		this.predTargets = directed ? predTargets : succTargets;
+	}
+
+	private static int[] fill(Graph g, int[] offsets, IntFunction<Coalition> adjacent) {
+		for (int i = 0; i < g.size(); ++i)
+			offsets[i + 1] = offsets[i] + adjacent.apply(i).size();
+		int[] targets = new int[offsets[g.size()]];
+		for (int i = 0; i < g.size(); ++i) {
+			int k = offsets[i];
+			for (int j : adjacent.apply(i))
+				targets[k++] = j;
+			Arrays.sort(targets, offsets[i], offsets[i + 1]);
+		}
+		return targets;
+	}
+
+	@Override
+	public Graph freeze() {
+		return this;
+	}
+
+	@Override
+	public Coalition getSuccs(int i) {
+		return new Slice(succTargets, succOffsets.get(i), succOffsets.get(i + 1));
+	}
+
+	@Override
+	public Coalition getPreds(int i) {
+		return new Slice(predTargets, predOffsets.get(i), predOffsets.get(i + 1));
+	}
+
+	public IntStream getSuccsStream(int i) {
+		return stream(succTargets, succOffsets.get(i), succOffsets.get(i + 1));
+	}
+
+	public IntStream getPredsStream(int i) {
+		return stream(predTargets, predOffsets.get(i), predOffsets.get(i + 1));
+	}
+
+	@Override
+	public boolean containsEdge(int i, int j) {
+		return i < size() && j < size() && contains(succTargets, succOffsets.get(i), succOffsets.get(i + 1), j);
+	}
+
+	/**
+	 * Stream of a[from..to), directly over the array if the buffer wraps one.
+	 */
+	private static IntStream stream(IntBuffer a, int from, int to) {
+		if (a.hasArray())
+			return Arrays.stream(a.array(), a.arrayOffset() + from, a.arrayOffset() + to);
+		return IntStream.range(from, to).map(a::get);
+	}
+
+	/**
+	 * Binary search of x in the sorted a[from..to).
+	 */
+	private static boolean contains(IntBuffer a, int from, int to, int x) {
+		if (a.hasArray())
+			return Arrays.binarySearch(a.array(), a.arrayOffset() + from, a.arrayOffset() + to, x) >= 0;
+		int lo = from;
+		int hi = to - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int v = a.get(mid);
+			if (v < x)
+				lo = mid + 1;
+			else if (v > x)
+				hi = mid - 1;
+			else
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	public int getOutDegree(int i) {
+		return succOffsets.get(i + 1) - succOffsets.get(i);
+	}
+
+	@Override
+	public int getInDegree(int i) {
+		return predOffsets.get(i + 1) - predOffsets.get(i);
+	}
+
+	// Raw buffers (they must not be modified)
+
+	public IntBuffer getSuccOffsets() {
+		return succOffsets.duplicate();
+	}
+
+	public IntBuffer getSuccTargets() {
+		return succTargets.duplicate();
+	}
+
+	public IntBuffer getPredOffsets() {
+		return predOffsets.duplicate();
+	}
+
+	public IntBuffer getPredTargets() {
+		return predTargets.duplicate();
+	}
+
+	@Override
+	public boolean addEdge(int i, int j) {
+		throw new UnsupportedOperationException("Frozen graph cannot be modified");
+	}
+
+	@Override
+	public boolean removeEdge(int i, int j) {
+		throw new UnsupportedOperationException("Frozen graph cannot be modified");
+	}
+
+	@Override
+	protected void performAddEdge(int i, int j) {
+		throw new UnsupportedOperationException("Frozen graph cannot be modified");
+	}
+
+	@Override
+	protected void performRemoveEdge(int i, int j) {
+		throw new UnsupportedOperationException("Frozen graph cannot be modified");
+	}
+
+	/**
+	 * Read-only view of the neighbours of a single node.
+	 */
+	private static class Slice extends Coalition {
+
+		private IntBuffer a;
+		private int from;
+		private int to;
+
+		public Slice(IntBuffer a, int from, int to) {
+			super((Void)null);
+			this.a = a;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public int size() {
+			return to - from;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return to == from;
+		}
+
+		@Override
+		public HashSet<Integer> getNodes() {
+			HashSet<Integer> res = new HashSet<>();
+			stream().forEach(i -> res.add(i));
+			return res;
+		}
+
+		@Override
+		public Integer[] asArray() {
+			return stream().boxed().toArray(Integer[]::new);
+		}
+
+		@Override
+		public List<Integer> asList() {
+			return Utils.asList(stream().boxed());
+		}
+
+		@Override
+		public IntStream stream() {
+			return CSRGraph.stream(a, from, to);
+		}
+
+		@Override
+		public Iterator<Integer> iterator() {
+			return stream().iterator();
+		}
+
+		@Override
+		public Integer getAny() {
+			return isEmpty() ? null : a.get(from);
+		}
+
+		@Override
+		public Integer getRandom() {
+			return isEmpty() ? null : a.get(from + RandomSource.get().nextInt(size()));
+		}
+
+		@Override
+		public boolean contains(int i) {
+			return CSRGraph.contains(a, from, to, i);
+		}
+
+		@Override
+		public Coalition clear() {
+			throw new UnsupportedOperationException("Frozen graph cannot be modified");
+		}
+
+		@Override
+		public Coalition add(int i) {
+			throw new UnsupportedOperationException("Frozen graph cannot be modified");
+		}
+
+		@Override
+		public Coalition add(Coalition c) {
+			throw new UnsupportedOperationException("Frozen graph cannot be modified");
+		}
+
+		@Override
+		public Coalition addAll(Collection<Integer> ii) {
+			throw new UnsupportedOperationException("Frozen graph cannot be modified");
+		}
+
+		@Override
+		public Coalition remove(int i) {
+			throw new UnsupportedOperationException("Frozen graph cannot be modified");
+		}
+
+		@Override
+		public Coalition remove(Coalition c) {
+			throw new UnsupportedOperationException("Frozen graph cannot be modified");
+		}
+
+		@Override
+		public Coalition removeAll(Collection<Integer> ii) {
+			throw new UnsupportedOperationException("Frozen graph cannot be modified");
+		}
+
+		@Override
+		public Coalition filter(Predicate<Integer> p) {
+			throw new UnsupportedOperationException("Frozen graph cannot be modified");
+		}
+
+		@Override
+		public String toString() {
+			return Arrays.toString(stream().toArray());
+		}
+	}
+}
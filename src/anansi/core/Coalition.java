@@ -2,6 +2,8 @@ package anansi.core;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -12,10 +14,9 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import anansi.utils.Utils;
+import anansi.utils.RandomSource;
 
 /**
  * Representation of a coalition - a group of nodes.
@@ -41,7 +42,12 @@ public class Coalition implements Iterable<Integer> {
 	}
 
 	public Coalition(Coalition c) {
-		this.nodes = new HashSet<>(c.nodes);
+		if (c.nodes != null)
+			this.nodes = new HashSet<>(c.nodes);
+		else {
+			this.nodes = new HashSet<>(Math.max((int)(c.size() / .75f) + 1, 16));
+			c.stream().forEach(i -> nodes.add(i));
+		}
 	}
 	
 	public Coalition(int... nodes) {
@@ -50,6 +56,22 @@ public class Coalition implements Iterable<Integer> {
 			this.add(i);
 	}
 	
+	/**
+	 * Constructor for subclasses that keep nodes in their own structure.
+	 */
+	protected Coalition(Void noNodes) {
+		this.nodes = null;
+	}
+	
+	/**
+	 * Empty coalition with space for the given number of nodes.
+	 */
+	static Coalition withCapacity(int expected) {
+		Coalition res = new Coalition((Void)null);
+		res.nodes = new HashSet<>(Math.max((int)(expected / .75f) + 1, 16));
+		return res;
+	}
+	
 	public static Coalition getFull(int n){
 		Coalition res = new Coalition();
 		for (int i = 0; i < n; ++i)
@@ -65,6 +87,10 @@ public class Coalition implements Iterable<Integer> {
 		return nodes.isEmpty();
 	}
 
+	public Coalition copy() {
+		return new Coalition(this);
+	}
+
 	public HashSet<Integer> getNodes() {
 		return nodes;
 	}
@@ -98,13 +124,13 @@ public class Coalition implements Iterable<Integer> {
 	}
 	
 	public Integer getRandom(){
-		return isEmpty() ? null : stream().skip(Utils.RAND.nextInt(size())).findFirst().getAsInt();
+		return isEmpty() ? null : stream().skip(RandomSource.get().nextInt(size())).findFirst().getAsInt();
 	}
 	
 	public Coalition getRandom(int k){
 		Coalition res = new Coalition();
 		for (int t = 0; t < Math.min(k, size()); ++t)
-			res.add(stream().filter(i -> !res.contains(i)).skip(Utils.RAND.nextInt(size() - res.size()))
+			res.add(stream().filter(i -> !res.contains(i)).skip(RandomSource.get().nextInt(size() - res.size()))
 					.findFirst().getAsInt());
 		return res;
 	}
@@ -126,7 +152,10 @@ public class Coalition implements Iterable<Integer> {
 	}
 
 	public Coalition add(Coalition c){
-		nodes.addAll(c.nodes);
+		if (c.nodes != null)
+			nodes.addAll(c.nodes);
+		else
+			c.stream().forEach(i -> nodes.add(i));
 		return this;
 	}
 	
@@ -136,14 +165,14 @@ public class Coalition implements Iterable<Integer> {
 	}
 
 	public static Coalition add(Coalition... cs){
-		Coalition res = new Coalition(cs[0]);
+		Coalition res = cs[0].copy();
 		for (int i = 1; i < cs.length; ++i)
 			res.add(cs[i]);
 		return res;
 	}
 
 	public static Coalition add(Coalition c1, int i){
-		Coalition res = new Coalition(c1);
+		Coalition res = c1.copy();
 		res.add(i);
 		return res;
 	}
@@ -154,7 +183,12 @@ public class Coalition implements Iterable<Integer> {
 	}
 
 	public Coalition remove(Coalition c){
-		nodes.removeAll(c.nodes);
+		if (c.nodes != null)
+			nodes.removeAll(c.nodes);
+		else if (size() > c.size())
+			c.stream().forEach(i -> nodes.remove(i));
+		else
+			filter(i -> !c.contains(i));
 		return this;
 	}
 	
@@ -164,11 +198,11 @@ public class Coalition implements Iterable<Integer> {
 	}
 
 	public static Coalition diff(Coalition c1, Coalition c2){
-		return new Coalition(c1.inplaceDiff(c2).boxed().collect(Collectors.toSet()));
+		return c1.copy().remove(c2);
 	}
 
 	public static Coalition diff(Coalition c1, int i){
-		Coalition res = new Coalition(c1);
+		Coalition res = c1.copy();
 		res.remove(i);
 		return res;
 	}
@@ -199,7 +233,9 @@ public class Coalition implements Iterable<Integer> {
 	}
 	
 	public static Coalition intersect(Coalition c1, Coalition c2){
-		return new Coalition(c1.inplaceIntersect(c2).boxed().collect(Collectors.toSet()));
+		Coalition small = c1.size() < c2.size() ? c1 : c2;
+		Coalition big = c1.size() < c2.size() ? c2 : c1;
+		return small.copy().keepOnly(big);
 	}
 	
 	
@@ -236,7 +272,7 @@ public class Coalition implements Iterable<Integer> {
 	public static Coalition getRandom(int k, int n){
 		Coalition res = new Coalition();
 		for (int t = 0; t < k; ++t)
-			res.add(IntStream.range(0, n).filter(i -> !res.contains(i)).skip(Utils.RAND.nextInt(n - t))
+			res.add(IntStream.range(0, n).filter(i -> !res.contains(i)).skip(RandomSource.get().nextInt(n - t))
 					.findFirst().getAsInt());
 		return res;
 	}
@@ -248,7 +284,9 @@ public class Coalition implements Iterable<Integer> {
 		if(!(o instanceof Coalition))
 			return false;
 		Coalition c = (Coalition) o;
-		return nodes.equals(c.nodes);
+		if (nodes != null && c.nodes != null)
+			return nodes.equals(c.nodes);
+		return size() == c.size() && stream().allMatch(i -> c.contains(i));
 	}
 
 	@Override
@@ -258,16 +296,27 @@ public class Coalition implements Iterable<Integer> {
 	
 	@Override
 	public int hashCode() {
-		return nodes.hashCode();
+		return nodes != null ? nodes.hashCode() : stream().sum();
 	}
 	
 	public static CoalitionCollector getCollector(){
-		return new CoalitionCollector();
+		return new CoalitionCollector(() -> new Coalition());
+	}
+	
+	public static CoalitionCollector getCollector(Supplier<Coalition> supplier){
+		return new CoalitionCollector(supplier);
 	}
 	
 	private static class CoalitionCollector implements Collector<Integer, Coalition, Coalition> {
 
-		private static Set<Characteristics> CHARS;
+		private static final Set<Characteristics> CHARS =
+				Collections.unmodifiableSet(EnumSet.of(Characteristics.IDENTITY_FINISH, Characteristics.UNORDERED));
+		
+		private Supplier<Coalition> supplier;
+		
+		public CoalitionCollector(Supplier<Coalition> supplier) {
+			this.supplier = supplier;
+		}
 		
 		@Override
 		public BiConsumer<Coalition, Integer> accumulator() {
@@ -276,11 +325,6 @@ public class Coalition implements Iterable<Integer> {
 
 		@Override
 		public Set<Characteristics> characteristics() {
-			if (CHARS == null){
-				CHARS =  new HashSet<>();
-				CHARS.add(Characteristics.IDENTITY_FINISH);
-				CHARS.add(Characteristics.UNORDERED);
-			}
 			return CHARS;
 		}
 
@@ -296,7 +340,7 @@ public class Coalition implements Iterable<Integer> {
 
 		@Override
 		public Supplier<Coalition> supplier() {
-			return () -> new Coalition();
+			return supplier;
 		}
 	}
 }
@@ -0,0 +1,320 @@
+package anansi.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import anansi.utils.RandomSource;
+
+/**
+ * Coalition of nodes from a known universe {0,...,n-1}, stored as a bitset.
+ * Membership tests and updates do not box nodes, which makes it suitable for large state sets
+ * (e.g., compartments of an epidemic model).
+ *
+ * @author Marcin Waniek
+ */
+public class DenseCoalition extends Coalition {
+
+	private long[] words;
+	private int size;
+
+	public DenseCoalition(int n) {
+		super((Void)null);
+		this.words = new long[(n + 63) >>> 6];
+		this.size = 0;
+	}
+
+	public DenseCoalition(int n, Coalition c) {
+		this(n);
+		add(c);
+	}
+
+	public DenseCoalition(DenseCoalition c) {
+		super((Void)null);
+		this.words = c.words.clone();
+		this.size = c.size;
+	}
+
+	public static DenseCoalition getFull(int n) {
+		DenseCoalition res = new DenseCoalition(n);
+		for (int w = 0; w < n >>> 6; ++w)
+			res.words[w] = -1L;
+		if ((n & 63) != 0)
+			res.words[n >>> 6] = (1L << n) - 1;
+		res.size = n;
+		return res;
+	}
+
+	public static Collector<Integer, Coalition, Coalition> getCollector(int n){
+		return Coalition.getCollector(() -> new DenseCoalition(n));
+	}
+
+	@Override
+	public DenseCoalition copy() {
+		return new DenseCoalition(this);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns a new set with nodes of the coalition (changes are not reflected in the coalition).
+	 */
+	@Override
+	public HashSet<Integer> getNodes() {
+		HashSet<Integer> res = new HashSet<>();
+		stream().forEach(i -> res.add(i));
+		return res;
+	}
+
+	@Override
+	public Integer[] asArray() {
+		Integer[] res = new Integer[size];
+		int k = 0;
+		for (int i = nextNode(0); i >= 0; i = nextNode(i + 1))
+			res[k++] = i;
+		return res;
+	}
+
+	public int[] asIntArray() {
+		int[] res = new int[size];
+		int k = 0;
+		for (int i = nextNode(0); i >= 0; i = nextNode(i + 1))
+			res[k++] = i;
+		return res;
+	}
+
+	@Override
+	public List<Integer> asList() {
+		List<Integer> res = new ArrayList<>(size);
+		for (int i = nextNode(0); i >= 0; i = nextNode(i + 1))
+			res.add(i);
+		return res;
+	}
+
+	@Override
+	public IntStream stream() {
+		return StreamSupport.intStream(Spliterators.spliterator(new NodesIterator(), size,
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL), false);
+	}
+
+	@Override
+	public Iterator<Integer> iterator() {
+		return new NodesIterator();
+	}
+
+	@Override
+	public Integer getAny() {
+		return isEmpty() ? null : nextNode(0);
+	}
+
+	@Override
+	public Integer getRandom() {
+		return isEmpty() ? null : select(RandomSource.get().nextInt(size));
+	}
+
+	@Override
+	public DenseCoalition getRandom(int k) {
+		DenseCoalition res = new DenseCoalition(words.length << 6);
+		if (k >= size)
+			return res.add(this);
+		int[] a = asIntArray();
+		for (int t = 0; t < k; ++t) {
+			int r = t + RandomSource.get().nextInt(a.length - t);
+			res.add(a[r]);
+			a[r] = a[t];
+		}
+		return res;
+	}
+
+	@Override
+	public boolean contains(int i) {
+		return i >= 0 && (i >>> 6) < words.length && (words[i >>> 6] & (1L << i)) != 0;
+	}
+
+	/**
+	 * Returns the smallest node not smaller than i, or -1 if there is none.
+	 */
+	public int nextNode(int i) {
+		int w = i >>> 6;
+		if (w >= words.length)
+			return -1;
+		long word = words[w] & (-1L << i);
+		while (word == 0) {
+			if (++w == words.length)
+				return -1;
+			word = words[w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	/**
+	 * Returns the k-th smallest node (counting from 0).
+	 */
+	private int select(int k) {
+		int w = 0;
+		int c;
+		while ((c = Long.bitCount(words[w])) <= k) {
+			k -= c;
+			++w;
+		}
+		long word = words[w];
+		for (int j = 0; j < k; ++j)
+			word &= word - 1;
+		return (w << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	private void ensureCapacity(int i) {
+		if ((i >>> 6) >= words.length) {
+			long[] newWords = new long[Math.max((i >>> 6) + 1, 2 * words.length)];
+			System.arraycopy(words, 0, newWords, 0, words.length);
+			words = newWords;
+		}
+	}
+
+	private void recountSize() {
+		size = 0;
+		for (long word : words)
+			size += Long.bitCount(word);
+	}
+
+	// Operations that perform changes in the Coalition
+
+	@Override
+	public DenseCoalition clear() {
+		for (int w = 0; w < words.length; ++w)
+			words[w] = 0L;
+		size = 0;
+		return this;
+	}
+
+	@Override
+	public DenseCoalition add(int i) {
+		ensureCapacity(i);
+		long bit = 1L << i;
+		if ((words[i >>> 6] & bit) == 0) {
+			words[i >>> 6] |= bit;
+			++size;
+		}
+		return this;
+	}
+
+	@Override
+	public DenseCoalition add(Coalition c) {
+		if (c instanceof DenseCoalition) {
+			DenseCoalition dc = (DenseCoalition) c;
+			if (dc.words.length > words.length)
+				ensureCapacity((dc.words.length << 6) - 1);
+			for (int w = 0; w < dc.words.length; ++w)
+				words[w] |= dc.words[w];
+			recountSize();
+		} else
+			c.stream().forEach(i -> add(i));
+		return this;
+	}
+
+	@Override
+	public DenseCoalition addAll(Collection<Integer> ii) {
+		for (int i : ii)
+			add(i);
+		return this;
+	}
+
+	@Override
+	public DenseCoalition remove(int i) {
+		if (contains(i)) {
+			words[i >>> 6] &= ~(1L << i);
+			--size;
+		}
+		return this;
+	}
+
+	@Override
+	public DenseCoalition remove(Coalition c) {
+		if (c instanceof DenseCoalition) {
+			DenseCoalition dc = (DenseCoalition) c;
+			for (int w = 0; w < Math.min(words.length, dc.words.length); ++w)
+				words[w] &= ~dc.words[w];
+			recountSize();
+		} else
+			c.stream().forEach(i -> remove(i));
+		return this;
+	}
+
+	@Override
+	public DenseCoalition removeAll(Collection<Integer> ii) {
+		for (int i : ii)
+			remove(i);
+		return this;
+	}
+
+	@Override
+	public DenseCoalition keepOnly(Coalition c) {
+		if (c instanceof DenseCoalition) {
+			DenseCoalition dc = (DenseCoalition) c;
+			for (int w = 0; w < words.length; ++w)
+				words[w] &= w < dc.words.length ? dc.words[w] : 0L;
+			recountSize();
+		} else
+			filter(i -> c.contains(i));
+		return this;
+	}
+
+	@Override
+	public DenseCoalition filter(Predicate<Integer> p) {
+		for (int i = nextNode(0); i >= 0; i = nextNode(i + 1))
+			if (!p.test(i))
+				remove(i);
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder res = new StringBuilder("[");
+		for (int i = nextNode(0); i >= 0; i = nextNode(i + 1))
+			res.append(res.length() > 1 ? ", " : "").append(i);
+		return res.append("]").toString();
+	}
+
+	private class NodesIterator implements PrimitiveIterator.OfInt {
+
+		private int next = nextNode(0);
+		private int last = -1;
+
+		@Override
+		public boolean hasNext() {
+			return next >= 0;
+		}
+
+		@Override
+		public int nextInt() {
+			if (next < 0)
+				throw new NoSuchElementException();
+			last = next;
+			next = nextNode(next + 1);
+			return last;
+		}
+
+		@Override
+		public void remove() {
+			DenseCoalition.this.remove(last);
+		}
+	}
+}
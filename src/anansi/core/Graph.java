@@ -11,6 +11,7 @@ import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+import anansi.utils.RandomSource;
 import anansi.utils.Utils;
 
 /**
@@ -29,7 +30,7 @@ public class Graph {
 	private ArrayList<Coalition> preds;
 	
 	private Stack<Change> history;
-	private ShortestPaths shortestPaths;
+	private volatile ShortestPaths shortestPaths;
 	private Collection<GraphChangeListener> listeners;
 	
 	public Graph(String name, int n, boolean directed){
@@ -57,11 +58,26 @@ public class Graph {
 		this(name, n, false);
 	}
 	
+	/**
+	 * Constructor for subclasses that keep the adjacency in their own structure.
+	 */
+	protected Graph(String name, int n, int m, boolean directed){
+		this.name = name;
+		this.n = n;
+		this.m = m;
+		this.directed = directed;
+		this.history = null;
+		this.succs = null;
+		this.preds = null;
+		this.shortestPaths = null;
+		this.listeners = new ArrayList<>();
+	}
+	
 	public Graph(Graph g){
 		this(g.name, g.n, g.directed);
-		for (int i : g.nodes())
-			for (Integer j : g.getSuccs(i))
-				addEdge(i, j);		
+		GraphBuilder b = new GraphBuilder(g.name, g.n, g.directed);
+		b.addEdges(g);
+		b.fill(this);
 	}
 
 	public void subscribe(GraphChangeListener listener){
@@ -174,6 +190,17 @@ public class Graph {
 		++m;
 	}
 	
+	/**
+	 * Replaces adjacency sets of an empty graph with ones sized for the given degrees.
+	 */
+	void presize(int[] outDegrees, int[] inDegrees){
+		for (int i = 0; i < n; ++i) {
+			succs.set(i, Coalition.withCapacity(outDegrees[i]));
+			if (directed)
+				preds.set(i, Coalition.withCapacity(inDegrees[i]));
+		}
+	}
+	
 	protected void performRemoveEdge(int i, int j){
 		succs.get(i).remove(j);
 		if (directed)
@@ -204,9 +231,9 @@ public class Graph {
 	}
 	
 	public Graph addNodes(int k) {
-		Graph res = new Graph(name, n + k, directed);
-		edgesStream().forEach(e -> res.addEdge(e));
-		return res;
+		GraphBuilder b = new GraphBuilder(name, n + k, directed);
+		b.addEdges(this);
+		return b.build();
 	}
 	
 	public Coalition getSuccs(int i){
@@ -224,7 +251,7 @@ public class Graph {
 		if (directed)
 			return Coalition.add(getSuccs(i), getPreds(i));
 		else
-			return succs.get(i);
+			return getSuccs(i);
 	}
 	
 	public Coalition getCommonSuccs(int i, int j){
@@ -272,7 +299,7 @@ public class Graph {
 	}
 	
 	public Coalition nodesCoalition(){
-		return Coalition.getFull(n);
+		return DenseCoalition.getFull(n);
 	}
 	
 	public Iterable<Edge> possibleEdges(){
@@ -313,9 +340,9 @@ public class Graph {
 	public Edge getRandomNonEdge(){
 		long r;
 		if (isDirected())
-			r = Math.abs(Utils.RAND.nextLong()) % nonEdgesCount();
+			r = Math.abs(RandomSource.get().nextLong()) % nonEdgesCount();
 		else
-			r = Math.abs(Utils.RAND.nextLong()) % (2 * nonEdgesCount());
+			r = Math.abs(RandomSource.get().nextLong()) % (2 * nonEdgesCount());
 		for (int i : nodes())
 			if (r < n - 1 - getOutDegree(i)) {
 				for (int j : nodes())
@@ -333,15 +360,27 @@ public class Graph {
 	public Edge getRandomNonEdgeSparse(){
 		Edge e = null;
 		do {
-			e = e(Utils.RAND.nextInt(n), Utils.RAND.nextInt(n));
+			e = e(RandomSource.get().nextInt(n), RandomSource.get().nextInt(n));
 		} while (e.i() == e.j() || containsEdge(e));
 		return e;
 	}
 	
+	/**
+	 * Returns an immutable snapshot of the graph in the compressed sparse row format.
+	 */
+	public Graph freeze() {
+		return new CSRGraph(this);
+	}
+	
 	public ShortestPaths sp() {
-		if (shortestPaths == null)
-			shortestPaths = ShortestPaths.construct(this);
-		return shortestPaths;
+		ShortestPaths res = shortestPaths;
+		if (res == null)
+			synchronized (this) {
+				if (shortestPaths == null)
+					shortestPaths = ShortestPaths.construct(this);
+				res = shortestPaths;
+			}
+		return res;
 	}
 	
 	public Coalition getNodesWithinDistance(int source, int distance) {
@@ -394,9 +433,9 @@ public class Graph {
 	
 	public Graph getUndirected() {
 		if (directed) {
-			Graph res = new Graph(name, n, false);
-			nodesStream().forEach(i -> getSuccs(i).forEach(j -> res.addEdge(i, j)));
-			return res;
+			GraphBuilder b = new GraphBuilder(name, n, false);
+			b.addEdges(this);
+			return b.build();
 		} else
 			return this;
 	}
@@ -415,7 +454,7 @@ public class Graph {
 	
 	public List<Coalition> getConnectedComponents(Coalition allowed){
 		List<Coalition> res = new ArrayList<>();
-		Coalition rest = allowed == null ? Coalition.getFull(n) : new Coalition(allowed);
+		Coalition rest = allowed == null ? DenseCoalition.getFull(n) : new DenseCoalition(n, allowed);
 		while (!rest.isEmpty()){
 			Coalition c = getConnectedComponent(rest.getAny(), allowed);
 			rest.remove(c);
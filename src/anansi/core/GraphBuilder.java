@@ -0,0 +1,118 @@
+package anansi.core;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Collecting edges of a graph in batches, and constructing the graph in one step.
+ * Edges are encoded as longs, sorted and deduplicated, so adjacency sets can be sized in advance;
+ * the graph is constructed without notifying listeners, recording history or creating Edge objects.
+ * Loops are ignored, and for undirected graphs i->j and j->i is the same edge.
+ *
+ * @author Marcin Waniek
+ */
+public class GraphBuilder {
+
+	private String name;
+	private int n;
+	private boolean directed;
+	private long[] edges;
+	private int size;
+
+	public GraphBuilder(String name, int n, boolean directed) {
+		this.name = name;
+		this.n = n;
+		this.directed = directed;
+		this.edges = new long[16];
+		this.size = 0;
+	}
+
+	public GraphBuilder(String name, int n) {
+		this(name, n, false);
+	}
+
+	public void addEdge(int i, int j) {
+		if (i == j)
+			return;
+		if (size == edges.length)
+			edges = Arrays.copyOf(edges, 2 * size);
+		edges[size++] = directed || i < j ? encode(i, j) : encode(j, i);
+	}
+
+	/**
+	 * Adds edges given as consecutive pairs of nodes.
+	 */
+	public void addEdges(int[] ends) {
+		ensureCapacity(size + ends.length / 2);
+		for (int k = 0; k + 1 < ends.length; k += 2)
+			addEdge(ends[k], ends[k + 1]);
+	}
+
+	public void addEdges(Stream<Edge> es) {
+		es.forEach(e -> addEdge(e.i(), e.j()));
+	}
+
+	/**
+	 * Adds all edges of the graph.
+	 */
+	public void addEdges(Graph g) {
+		ensureCapacity(size + g.edgesCount());
+		for (int i = 0; i < g.size(); ++i)
+			for (int j : g.getSuccs(i))
+				if (g.isDirected() || directed || i < j)
+					addEdge(i, j);
+	}
+
+	public Graph build() {
+		Graph res = new Graph(name, n, directed);
+		fill(res);
+		return res;
+	}
+
+	public <V,E> LWGraph<V,E> buildLW() {
+		LWGraph<V,E> res = new LWGraph<>(name, n, directed);
+		fill(res);
+		return res;
+	}
+
+	/**
+	 * Adds collected edges to the empty graph.
+	 */
+	void fill(Graph g) {
+		if (size > 1 << 16)
+			Arrays.parallelSort(edges, 0, size);
+		else
+			Arrays.sort(edges, 0, size);
+		int distinct = 0;
+		for (int k = 0; k < size; ++k)
+			if (k == 0 || edges[k] != edges[k - 1])
+				edges[distinct++] = edges[k];
+		size = distinct;
+		int[] outDegrees = new int[n];
+		int[] inDegrees = directed ? new int[n] : outDegrees;
+		for (int k = 0; k < size; ++k) {
+			++outDegrees[first(edges[k])];
+			++inDegrees[second(edges[k])];
+		}
+		g.presize(outDegrees, inDegrees);
+		for (int k = 0; k < size; ++k)
+			g.performAddEdge(first(edges[k]), second(edges[k]));
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > edges.length)
+			edges = Arrays.copyOf(edges, Math.max(capacity, 2 * edges.length));
+	}
+
+	private static long encode(int i, int j) {
+		return ((long)i << 32) | (j & 0xffffffffL);
+	}
+
+	private static int first(long e) {
+		return (int)(e >>> 32);
+	}
+
+	private static int second(long e) {
+		return (int)e;
+	}
+}
@@ -0,0 +1,189 @@
+package anansi.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import anansi.utils.FileReaderWriter;
+
+/**
+ * Binary format of graphs, loaded by mapping the file into memory.
+ * A file consists of a header (magic number, version, flags, number of nodes, number of arcs and the name of the graph),
+ * followed by little-endian int arrays: offsets and targets of successors in the compressed sparse row format and,
+ * for directed graphs, offsets and targets of predecessors. Every undirected edge is stored as two arcs.
+ * Further sections (e.g., timelines of temporal graphs) may follow, and are ignored by {@link #read(String)}.
+ *
+ * @author Marcin Waniek
+ */
+public class GraphFile {
+
+	public static final int MAGIC = 0x414E5347;
+	public static final int VERSION = 1;
+	public static final int DIRECTED = 1;
+	public static final int TEMPORAL = 2;
+
+	/**
+	 * Writes the graph to the file.
+	 */
+	public static void write(Graph g, String filePath) {
+		FileReaderWriter.createIfDoesNotExist(filePath);
+		try (Writer w = new Writer(filePath)) {
+			w.writeGraph(g, 0);
+		} catch (IOException e) {
+			System.err.println("Error during writing to file.");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Reads the graph from the file. The result is backed by the mapped file, so no adjacency is copied to the heap.
+	 */
+	public static CSRGraph read(String filePath) {
+		try (Reader r = new Reader(filePath)) {
+			return r.readGraph();
+		} catch (IOException e) {
+			System.err.println("Error during reading from file.");
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * Sequential writer of the format.
+	 */
+	public static class Writer implements Closeable {
+
+		private FileChannel channel;
+		private ByteBuffer buf;
+
+		public Writer(String filePath) throws IOException {
+			this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			this.buf = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		/**
+		 * Writes the header and the adjacency of the graph, with the given additional flags.
+		 */
+		public CSRGraph writeGraph(Graph g, int flags) throws IOException {
+			CSRGraph csr = g instanceof CSRGraph ? (CSRGraph)g : new CSRGraph(g);
+			byte[] name = csr.getName().getBytes(StandardCharsets.UTF_8);
+			writeInt(MAGIC);
+			writeInt(VERSION);
+			writeInt(flags | (csr.isDirected() ? DIRECTED : 0));
+			writeInt(csr.size());
+			writeInt(csr.getSuccTargets().limit());
+			writeInt(name.length);
+			for (int k = 0; k < (name.length + 3) / 4 * 4; ++k)
+				writeByte(k < name.length ? name[k] : 0);
+			writeInts(csr.getSuccOffsets());
+			writeInts(csr.getSuccTargets());
+			if (csr.isDirected()) {
+				writeInts(csr.getPredOffsets());
+				writeInts(csr.getPredTargets());
+			}
+			return csr;
+		}
+
+		public void writeInt(int x) throws IOException {
+			if (buf.remaining() < Integer.BYTES)
+				flush();
+			buf.putInt(x);
+		}
+
+		public void writeInts(IntBuffer a) throws IOException {
+			while (a.hasRemaining())
+				writeInt(a.get());
+		}
+
+		private void writeByte(byte b) throws IOException {
+			if (!buf.hasRemaining())
+				flush();
+			buf.put(b);
+		}
+
+		private void flush() throws IOException {
+			buf.flip();
+			while (buf.hasRemaining())
+				channel.write(buf);
+			buf.clear();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				flush();
+			} finally {
+				channel.close();
+			}
+		}
+	}
+
+	/**
+	 * Reader of the format, mapping consecutive arrays of the file. Mapped arrays stay valid after the reader is closed.
+	 */
+	public static class Reader implements Closeable {
+
+		private FileChannel channel;
+		private long pos;
+		private int flags;
+
+		public Reader(String filePath) throws IOException {
+			this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+			this.pos = 0;
+			this.flags = 0;
+		}
+
+		public int getFlags() {
+			return flags;
+		}
+
+		/**
+		 * Reads the header and maps the adjacency of the graph.
+		 */
+		public CSRGraph readGraph() throws IOException {
+			IntBuffer header = mapInts(6);
+			if (header.get(0) != MAGIC)
+				throw new IOException("Not a graph file.");
+			if (header.get(1) != VERSION)
+				throw new IOException("Unsupported version of graph file: " + header.get(1) + ".");
+			this.flags = header.get(2);
+			int n = header.get(3);
+			int arcs = header.get(4);
+			byte[] name = new byte[header.get(5)];
+			ByteBuffer nameBuf = channel.map(FileChannel.MapMode.READ_ONLY, pos, name.length);
+			nameBuf.get(name);
+			pos += (name.length + 3) / 4 * 4;
+			boolean directed = (flags & DIRECTED) != 0;
+			IntBuffer succOffsets = mapInts(n + 1);
+			IntBuffer succTargets = mapInts(arcs);
+			IntBuffer predOffsets = directed ? mapInts(n + 1) : null;
+			IntBuffer predTargets = directed ? mapInts(arcs) : null;
+			return new CSRGraph(new String(name, StandardCharsets.UTF_8), directed, succOffsets, succTargets,
+					predOffsets, predTargets);
+		}
+
+		/**
+		 * Maps the next len ints of the file.
+		 */
+		public IntBuffer mapInts(int len) throws IOException {
+			long bytes = (long)len * Integer.BYTES;
+			if (pos + bytes > channel.size())
+				throw new IOException("Unexpected end of graph file.");
+			IntBuffer res = channel.map(FileChannel.MapMode.READ_ONLY, pos, bytes).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			pos += bytes;
+			return res;
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+}
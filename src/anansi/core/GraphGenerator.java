@@ -1,12 +1,13 @@
 package anansi.core;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.random.RandomGenerator;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import anansi.utils.ProbabilityDistribution;
+import anansi.utils.RandomSource;
 import anansi.utils.Utils;
 
 /**
@@ -16,17 +17,20 @@ import anansi.utils.Utils;
  */
 public class GraphGenerator {
 	
+	private static final int ER_BLOCKS = 64;
+	
 	public static Graph combine(List<Graph> gs){
 		int n = gs.stream().mapToInt(g -> g.size()).sum();
 		String name = gs.stream().map(g -> g.getName()).reduce((s1,s2) -> s1 + "+" + s2).orElse("G");
-		Graph res = new Graph(name, n);
+		GraphBuilder res = new GraphBuilder(name, n);
 		int offset = 0;
 		for (Graph g : gs) {
-			for (Edge e : g.edges())
-				res.addEdge(e.i() + offset, e.j() + offset);
+			for (int i = 0; i < g.size(); ++i)
+				for (int j : g.getSuccs(i))
+					res.addEdge(i + offset, j + offset);
 			offset += g.size();
 		}
-		return res;
+		return res.build();
 	}
 	
 	public static Graph randomlyDistort(Graph g, double prob){
@@ -34,7 +38,7 @@ public class GraphGenerator {
 		for (int i : g.nodes())
 			for (int j : g.nodes())
 				if (i < j || (g.isDirected() && i != j)){
-					double r = Utils.RAND.nextDouble();
+					double r = RandomSource.get().nextDouble();
 					if ((!g.containsEdge(i, j) && r <= prob) || (g.containsEdge(i, j) && r > prob)) 
 						res.addEdge(i, j);
 				}
@@ -46,7 +50,7 @@ public class GraphGenerator {
 		for (int i : g.nodes())
 			for (int j : g.nodes())
 				if ((i < j || (g.isDirected() && i != j))
-						&& g.containsEdge(i, j) && Utils.RAND.nextDouble() > prob) 
+						&& g.containsEdge(i, j) && RandomSource.get().nextDouble() > prob) 
 					res.addEdge(i, j);
 		return res;
 	}
@@ -56,7 +60,7 @@ public class GraphGenerator {
 		for (int i : g.nodes())
 			for (int j : g.nodes())
 				if ((i < j || (g.isDirected() && i != j))
-						&& (g.containsEdge(i, j) || Utils.RAND.nextDouble() <= prob)) 
+						&& (g.containsEdge(i, j) || RandomSource.get().nextDouble() <= prob)) 
 					res.addEdge(i, j);
 		return res;
 	}
@@ -134,26 +138,43 @@ public class GraphGenerator {
 		if (directed)
 			name = "d" + name;
 		int m = avgDegree / 2; // how many edges are added with each node
-		Graph res = new Graph(name, n, directed);
-		ProbabilityDistribution<Integer> pd = new ProbabilityDistribution<>(
-				Utils.asList(IntStream.range(0, n).boxed()), i -> (double)res.getDegree(i));
-		for (int i = 0; i <= m; ++i)
+		GraphBuilder res = new GraphBuilder(name, n, directed);
+		// every node appears in the list once per each incident edge, so a uniformly drawn stub is a node drawn
+		// with probability proportional to its degree
+		int[] stubs = new int[Math.toIntExact(2 * Math.max(0L, (m + 1L) * m / 2 + (long)(n - m - 1) * m))];
+		int size = 0;
+		for (int i = 0; i <= m && i < n; ++i)
 			for (int j = 0; j < i; ++j) {
 				res.addEdge(i, j);
 				if (directed)
 					res.addEdge(j, i);
+				stubs[size++] = i;
+				stubs[size++] = j;
 			}
+		int[] chosen = new int[m];
 		for (int i = m + 1; i < n; ++i) {
+			int before = size;
 			for (int edge = 0; edge < m; ++edge){
-				int fi = i;
-				int j = pd.drawFiltered(k -> k != fi && !res.containsEdge(fi, k));
+				int j;
+				do {
+					j = stubs[RandomSource.get().nextInt(before)];
+				} while (contains(chosen, edge, j));
+				chosen[edge] = j;
 				res.addEdge(i, j);
 				if (directed)
 					res.addEdge(j, i);
+				stubs[size++] = i;
+				stubs[size++] = j;
 			}
-			pd.reset();
 		}
-		return res;
+		return res.build();
+	}
+	
+	private static boolean contains(int[] a, int len, int x) {
+		for (int k = 0; k < len; ++k)
+			if (a[k] == x)
+				return true;
+		return false;
 	}
 	
 /* 
@@ -172,56 +193,67 @@ public class GraphGenerator {
 		return generateScaleFreeConfigurationModel(n, alpha, 1, n-1);
 	}
 	
+	/**
+	 * Stubs are matched in a single pass over a random permutation, and loops and repeated edges are dropped
+	 * (the erased configuration model), so nodes may end up with slightly smaller degrees than drawn.
+	 */
 	public static Graph generateScaleFreeConfigurationModel(int n, double alpha, int kMin, int kMax) {
-		while (true) {
-			String name = "sfc-" + n + "-" + Math.round(alpha)
-					+ (kMin != 1 || kMax != n-1 ? "-" + kMin + "-" + kMax : "");
-			Graph res = new Graph(name, n);
-			List<Integer> degrees = new ArrayList<>();
-			int dSum = 0;
-			for (int i = 0; i < n; ++i) {
-				int d = powerLaw(alpha, kMin, kMax);
-				degrees.add(d);
-				dSum += d;
-			}
-			if (dSum % 2 != 0) {
-				int d = degrees.get(0);
-				if (degrees.get(0) < kMax)
-					degrees.set(0, ++d);
-				else
-					degrees.set(0, --d);				
-			}
-			List<Integer> stubs = new ArrayList<>();
-			for (int v : res.nodes())
-				for (int i = 0; i < degrees.get(v); ++i)
-					stubs.add(v);
-			int tries = 0;
-			while (!stubs.isEmpty() && tries++ < 5) {
-				Collections.shuffle(stubs);
-				List<Integer> failures = new ArrayList<>();
-				for (int i = 0; i < stubs.size(); i += 2)
-					if (!res.addEdge(stubs.get(i), stubs.get(i + 1))) {
-						failures.add(stubs.get(i));
-						failures.add(stubs.get(i + 1));
-					}
-				stubs = failures;
-			}
-			res.forceConnectivity();
-			if (stubs.isEmpty())
-				return res;
+		double[] cdf = powerLawCDF(alpha, kMin, kMax);
+		String name = "sfc-" + n + "-" + Math.round(alpha)
+				+ (kMin != 1 || kMax != n-1 ? "-" + kMin + "-" + kMax : "");
+		int[] degrees = new int[n];
+		long dSum = 0;
+		for (int i = 0; i < n; ++i) {
+			degrees[i] = powerLaw(cdf, kMin);
+			dSum += degrees[i];
 		}
+		if (dSum % 2 != 0) {
+			int d = degrees[0] < kMax ? 1 : -1;
+			degrees[0] += d;
+			dSum += d;
+		}
+		int[] stubs = new int[Math.toIntExact(dSum)];
+		int size = 0;
+		for (int v = 0; v < n; ++v)
+			for (int i = 0; i < degrees[v]; ++i)
+				stubs[size++] = v;
+		Utils.shuffle(stubs, size);
+		GraphBuilder b = new GraphBuilder(name, n);
+		b.addEdges(stubs);
+		Graph res = b.build();
+		res.forceConnectivity();
+		return res;
 	}
 	
-	private static int powerLaw(double alpha, int kMin, int kMax){
+	/**
+	 * Cumulative distribution of degrees from {kMin,...,kMax}, where the probability of k is proportional to k^(-alpha).
+	 */
+	private static double[] powerLawCDF(double alpha, int kMin, int kMax){
 		double norm = 1./(Utils.hurwiczZeta(alpha, kMin, .00001) - Utils.hurwiczZeta(alpha, kMax+1, .00001));
-		double rng = Utils.RAND.nextDouble();
-		double prob = 0.;		
+		double[] res = new double[kMax - kMin + 1];
+		double prob = 0.;
 		for (int k = kMin; k <= kMax; ++k) {
 			prob += Math.pow((double)k, -alpha) * norm;
-			if (rng <= prob)
-				return k;			
+			res[k - kMin] = prob;
+		}
+		return res;
+	}
+	
+	/**
+	 * Draws a degree by inverse transform sampling (binary search of the first k with cdf(k) >= r).
+	 */
+	private static int powerLaw(double[] cdf, int kMin){
+		double rng = RandomSource.get().nextDouble();
+		int lo = 0;
+		int hi = cdf.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (cdf[mid] < rng)
+				lo = mid + 1;
+			else
+				hi = mid;
 		}
-		return 0;
+		return lo < cdf.length ? kMin + lo : 0;
 	}
 	
 /*
@@ -246,18 +278,72 @@ public class GraphGenerator {
 			name = "d" + name;
 			prob /= 2.;
 		}
-		Graph res = new Graph(name, n, directed);
-		for (int i : res.nodes())
-			for (int j = i + 1; j < n; ++j){
-				if (Utils.RAND.nextDouble() <= prob)
-					res.addEdge(i, j);
-				if (directed && Utils.RAND.nextDouble() <= prob)
-					res.addEdge(j, i);
-			}
+		long stream = RandomSource.get().nextLong();
+		int blocks = Math.max(1, Math.min(ER_BLOCKS, n));
+		double p = prob;
+		List<int[]> edges = IntStream.range(0, blocks).parallel()
+				.mapToObj(b -> generateErdosRenyiRows(n, erdosRenyiRow(n, b, blocks, directed),
+						erdosRenyiRow(n, b + 1, blocks, directed), p, directed, RandomSource.derive(stream, b)))
+				.collect(Collectors.toList());
+		GraphBuilder b = new GraphBuilder(name, n, directed);
+		for (int[] block : edges)
+			b.addEdges(block);
+		Graph res = b.build();
 		res.forceConnectivity();
 		return res;
 	}
 	
+	/**
+	 * First row of the given block, so that all blocks contain similar numbers of pairs of nodes.
+	 */
+	private static int erdosRenyiRow(int n, int block, int blocks, boolean directed) {
+		if (directed)
+			return (int)((long)n * block / blocks);
+		return (int)Math.round(n * Math.sqrt((double)block / blocks));
+	}
+	
+/*
+@article{batagelj2005efficient,
+	title={Efficient generation of large random networks},
+	author={Batagelj, Vladimir and Brandes, Ulrik},
+	journal={Physical Review E},
+	volume={71},
+	number={3},
+	pages={036113},
+	year={2005},
+	publisher={APS}
+}
+*/
+	/**
+	 * Edges (as consecutive pairs of nodes) between nodes v from rows [from,to) and nodes w < v (or all nodes w != v
+	 * for directed graphs), each present with probability p. Instead of testing every pair, the number of pairs
+	 * skipped before the next edge is drawn from the geometric distribution.
+	 */
+	private static int[] generateErdosRenyiRows(int n, int from, int to, double p, boolean directed,
+			RandomGenerator rand) {
+		int[] res = new int[16];
+		int size = 0;
+		if (p <= 0.)
+			return res;
+		double logq = Math.log1p(-Math.min(p, 1.));
+		long v = from;
+		long w = -1;
+		while (v < to) {
+			w += 1 + (long)Math.min(Math.floor(Math.log(1. - rand.nextDouble()) / logq), (double)n * n);
+			while (v < to && w >= (directed ? n - 1 : v)) {
+				w -= directed ? n - 1 : v;
+				++v;
+			}
+			if (v < to) {
+				if (size == res.length)
+					res = Arrays.copyOf(res, 2 * size);
+				res[size++] = (int)v;
+				res[size++] = (int)(directed && w >= v ? w + 1 : w);
+			}
+		}
+		return Arrays.copyOf(res, size);
+	}
+	
 /*
 @article{watts1998collective,
 	title={Collective dynamics of small-world networks},
@@ -288,7 +374,7 @@ public class GraphGenerator {
 			}
 		if (avgDegree < n - 1)
 			for (Edge e : res.edgesStream().collect(Collectors.toList()))
-				if (Utils.RAND.nextDouble() < beta && res.getOutDegree(e.i()) < res.size() - 1){
+				if (RandomSource.get().nextDouble() < beta && res.getOutDegree(e.i()) < res.size() - 1){
 					int i = e.i();
 					int j = i;
 					if (res.getOutDegree(i) > res.size() / 1000)
@@ -297,7 +383,7 @@ public class GraphGenerator {
 								n - res.getOutDegree(i) - 1);
 					else
 						while (j == i || res.getSuccs(i).contains(j))
-							j = Utils.RAND.nextInt(res.size());
+							j = RandomSource.get().nextInt(res.size());
 					res.removeEdge(e);
 					res.addEdge(i, j);
 				}
@@ -319,7 +405,7 @@ public class GraphGenerator {
 	public static Graph generatePruferTree(int n) {
 		int[] a = new int[n-2];
 		for (int i = 0; i < a.length; ++i)
-			a[i] = Utils.RAND.nextInt(n);
+			a[i] = RandomSource.get().nextInt(n);
 		int[] degr = new int[n];
 		for (int i = 0; i < degr.length; ++i)
 			degr[i] = 1;
@@ -37,6 +37,9 @@ public abstract class MonteCarloAlgorithm {
 		return runAll(() -> IntStream.range(0, getPortion()).forEach(i -> singleMCIteration()));
 	}
 	
+	/**
+	 * Requires singleMCIteration to be thread-safe; see ParallelMonteCarloAlgorithm for per-thread state and reproducible results.
+	 */
 	public Double runParallelProcess(){
 		return runAll(() -> IntStream.range(0, getPortion()).parallel().forEach(i -> singleMCIteration()));
 	}
@@ -0,0 +1,132 @@
+package anansi.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
+
+import anansi.utils.RandomSource;
+
+/**
+ * Abstraction of a Monte Carlo method run by several threads.
+ * Every portion of iterations is split into a fixed number of chunks. Each chunk has its own accumulator
+ * and its own random generator split from a seeded root, and accumulators are merged in the order of chunks
+ * after the portion is finished. The generator of a chunk is also bound to the thread running it (see {@link RandomSource}),
+ * so that models and generators used in iterations draw from it. Therefore, given the seed, the result does not depend
+ * on the number of threads.
+ *
+ * @author Marcin Waniek
+ */
+public abstract class ParallelMonteCarloAlgorithm<A> {
+
+	private Long seed;
+	private int parallelism;
+
+	public ParallelMonteCarloAlgorithm() {
+		this.seed = null;
+		this.parallelism = Runtime.getRuntime().availableProcessors();
+	}
+
+	protected void preProcess(){}
+
+	/**
+	 * Creates an empty accumulator for a single chunk.
+	 */
+	protected abstract A createAccumulator();
+
+	protected abstract void singleMCIteration(A acc, RandomGenerator rand);
+
+	/**
+	 * Adds results gathered in the accumulator to the global state (called sequentially, in the order of chunks).
+	 */
+	protected abstract void merge(A acc);
+
+	protected abstract double getControlSum(int iter);
+
+	protected void postProcess(){}
+
+	public int getPortion(){
+		return 1000;
+	}
+
+	public int getMinIterations(){
+		return 1000;
+	}
+
+	public int getMaxIterations(){
+		return 1000000;
+	}
+
+	public double getPrecision(){
+		return 0.00001;
+	}
+
+	/**
+	 * Number of chunks each portion is split into (it should not depend on the machine, to keep results reproducible).
+	 */
+	public int getChunks(){
+		return 64;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	public Double runProcess(){
+		SplittableRandom root = new SplittableRandom(seed == null ? RandomSource.get().nextLong() : seed);
+		ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+		try {
+			Double controlSum = null;
+			preProcess();
+			int iter = 0;
+			while (iter < getMaxIterations()) {
+				runPortion(pool, root);
+				iter += getPortion();
+				Double newControlSum = getControlSum(iter);
+				if (controlSum != null && Math.abs(controlSum - newControlSum) < getPrecision() && iter > getMinIterations())
+					break;
+				controlSum = newControlSum;
+			}
+			postProcess();
+			return controlSum;
+		} finally {
+			if (pool != null)
+				pool.shutdown();
+		}
+	}
+
+	private void runPortion(ForkJoinPool pool, SplittableRandom root) {
+		int chunks = Math.max(1, Math.min(getChunks(), getPortion()));
+		List<Callable<A>> tasks = new ArrayList<>();
+		for (int c = 0; c < chunks; ++c) {
+			int iterations = getPortion() / chunks + (c < getPortion() % chunks ? 1 : 0);
+			SplittableRandom rand = root.split();
+			tasks.add(() -> RandomSource.with(rand, () -> {
+				A acc = createAccumulator();
+				for (int k = 0; k < iterations; ++k)
+					singleMCIteration(acc, rand);
+				return acc;
+			}));
+		}
+		try {
+			if (pool == null)
+				for (Callable<A> task : tasks)
+					merge(task.call());
+			else
+				for (Future<A> f : pool.invokeAll(tasks))
+					merge(f.get());
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
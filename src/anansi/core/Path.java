@@ -1,7 +1,7 @@
 package anansi.core;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -165,7 +165,7 @@ public class Path implements Iterable<Integer> {
 	
 	private static class PathCollector implements Collector<Integer, Path, Path> {
 
-		private static Set<Characteristics> CHARS;
+		private static final Set<Characteristics> CHARS = Collections.singleton(Characteristics.IDENTITY_FINISH);
 		
 		@Override
 		public BiConsumer<Path, Integer> accumulator() {
@@ -174,10 +174,6 @@ public class Path implements Iterable<Integer> {
 
 		@Override
 		public Set<Characteristics> characteristics() {
-			if (CHARS == null){
-				CHARS =  new HashSet<>();
-				CHARS.add(Characteristics.IDENTITY_FINISH);
-			}
 			return CHARS;
 		}
 
@@ -1,13 +1,26 @@
 package anansi.core;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import anansi.utils.IndexedHeap;
+import anansi.utils.LRUCache;
 import anansi.utils.Utils;
 
 /**
- * Class keeping track of shortest paths between pairs of nodes using Dijkstra's algorithm.
+ * Class keeping track of shortest paths between pairs of nodes using Dijkstra's algorithm
+ * (or breadth-first search, if all edges have unit length).
+ * All-pairs distances are computed in parallel, with sources distributed among worker threads.
  * 
  * @author Marcin Waniek
  */
@@ -15,18 +28,25 @@ public class ShortestPaths implements GraphChangeListener {
 
 	public static final int LOW_MEMORY_THRESHOLD = 20000;
 	private static final double DELTA = .000001;
+	private static final int PARALLEL_ROWS_THRESHOLD = 16;
 
 	protected Graph g;
-	protected double[][] spLength;
+	protected volatile double[][] spLength;
 	protected int[][] spNumber;
-	protected Integer[][] spStep;
-	protected int lowMemorySpRoot;
-	protected double[] lowMemorySpLength;
-	protected int[] lowMemorySpNumber;
-	protected Integer[] lowMemorySpStep;
+	protected int[][] spStep;
+	protected LRUCache<Long, Row> rows;
+	private volatile int version;
+	private boolean offHeapRows;
+	private int parallelism;
+	private ForkJoinPool pool;
 	
 	protected ShortestPaths(Graph g) {
 		this.g = g;
+		this.rows = new LRUCache<>(Runtime.getRuntime().maxMemory() / 16, r -> r.bytes());
+		this.version = 0;
+		this.offHeapRows = false;
+		this.parallelism = Runtime.getRuntime().availableProcessors();
+		this.pool = null;
 		reactNotify();
 	}
 	
@@ -36,6 +56,35 @@ public class ShortestPaths implements GraphChangeListener {
 		return res;
 	}
 	
+	/**
+	 * Sets the number of threads used to compute all-pairs distances.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+	
+	public int getParallelism() {
+		return parallelism;
+	}
+	
+	/**
+	 * Sets the memory budget (in bytes) of the cache of single-source rows used in the low memory mode.
+	 */
+	public void setRowCacheCapacity(long bytes) {
+		rows.setCapacity(bytes);
+	}
+	
+	/**
+	 * Decides whether newly computed single-source rows are stored outside of the Java heap.
+	 */
+	public void setOffHeapRows(boolean offHeapRows) {
+		this.offHeapRows = offHeapRows;
+	}
+	
+	public LRUCache<Long, Row> getRowCache() {
+		return rows;
+	}
+	
 	public double getDistance(int i, int j){
 		if (g.size() > LOW_MEMORY_THRESHOLD)
 			return getLowMemoryDistance(i, j);
@@ -45,9 +94,7 @@ public class ShortestPaths implements GraphChangeListener {
 	}
 
 	public double getLowMemoryDistance(int i, int j){
-		if (lowMemorySpRoot != i)
-			recountLowMemoryDistances(i);
-		return lowMemorySpLength[j];
+		return getRow(i).length(j);
 	}
 	
 	public int getNumberOfShortestPaths(int i, int j){
@@ -59,9 +106,7 @@ public class ShortestPaths implements GraphChangeListener {
 	}
 
 	public int getLowMemoryNumberOfShortestPaths(int i, int j){
-		if (lowMemorySpRoot != i)
-			recountLowMemoryDistances(i);
-		return lowMemorySpNumber[j];
+		return getRow(i).number(j);
 	}
 	
 	public Integer getStep(int i, int j){
@@ -69,13 +114,12 @@ public class ShortestPaths implements GraphChangeListener {
 			return getLowMemoryStep(i, j);
 		if (spLength == null)
 			recountDistances();
-		return spStep[i][j];
+		return spStep[i][j] < 0 ? null : spStep[i][j];
 	}
 	
 	public Integer getLowMemoryStep(int i, int j){
-		if (lowMemorySpRoot != i)
-			recountLowMemoryDistances(i);
-		return lowMemorySpStep[j];
+		int res = getRow(i).step(j);
+		return res < 0 ? null : res;
 	}
 	
 	public Path getShortestPath(int from, int to){
@@ -90,11 +134,10 @@ public class ShortestPaths implements GraphChangeListener {
 	}
 	
 	public Path getLowMemoryShortestPath(int from, int to){
-		if (lowMemorySpRoot != from)
-			recountLowMemoryDistances(from);
+		Row row = getRow(from);
 		Path p = new Path(to);
 		while (p.get(0) != from)
-			p.addFirst(Utils.argmin(g.getPreds(p.get(0)), i -> lowMemorySpLength[i] + edgeLength(i, p.get(0))));
+			p.addFirst(Utils.argmin(g.getPreds(p.get(0)), i -> row.length(i) + edgeLength(i, p.get(0))));
 		return p;
 	}
 	
@@ -107,44 +150,142 @@ public class ShortestPaths implements GraphChangeListener {
 	}
 	
 	public List<Path> getLowMemoryShortestPaths(int from, int to){
-		if (lowMemorySpRoot != from)
-			recountLowMemoryDistances(from);
-		return findAllShortestPaths(from, to, lowMemorySpLength);
+		return findAllShortestPaths(from, to, getRow(from).lengths());
 	}
 	
-	private void recountDistances(){
-		spLength = new double[g.size()][g.size()];
-		spNumber = new int[g.size()][g.size()];
-		spStep = new Integer[g.size()][g.size()];
-		for (int i = 0; i < spLength.length; ++i)
-			for (int j = 0; j < spLength[i].length; ++j)
-				spLength[i][j] = Double.POSITIVE_INFINITY;
-		for (int i : g.nodes())
-			findDistancesFrom(i, spLength[i], spNumber[i], spStep[i]);
+	private synchronized void recountDistances(){
+		if (spLength != null)
+			return;
+		int n = g.size();
+		double[][] length = new double[n][];
+		int[][] number = new int[n][];
+		int[][] step = new int[n][];
+		computeRows(g.nodesStream().toArray(), length, number, step);
+		spNumber = number;
+		spStep = step;
+		spLength = length;
+	}
+	
+	/**
+	 * Computes rows of the given sources, in parallel if there are many of them. The pool of threads is created
+	 * on first use and kept (its idle threads terminate on their own).
+	 */
+	private void computeRows(int[] sources, double[][] length, int[][] number, int[][] step){
+		int n = g.size();
+		AtomicInteger next = new AtomicInteger();
+		Callable<Void> worker = () -> {
+			int[] queue = new int[n];
+			IndexedHeap heap = unitEdgeLength() ? null : new IndexedHeap(n);
+			for (int k = next.getAndIncrement(); k < sources.length; k = next.getAndIncrement()) {
+				int i = sources[k];
+				length[i] = new double[n];
+				number[i] = new int[n];
+				step[i] = new int[n];
+				Arrays.fill(length[i], Double.POSITIVE_INFINITY);
+				Arrays.fill(step[i], -1);
+				findDistancesFrom(i, length[i], number[i], step[i], queue, heap);
+			}
+			return null;
+		};
+		int threads = Math.min(parallelism, sources.length);
+		if (threads <= 1 || sources.length < PARALLEL_ROWS_THRESHOLD)
+			runWorker(worker);
+		else {
+			try {
+				List<Callable<Void>> workers = new ArrayList<>();
+				for (int k = 0; k < threads; ++k)
+					workers.add(worker);
+				for (Future<Void> f : getPool().invokeAll(workers))
+					f.get();
+			} catch (InterruptedException | ExecutionException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+	
+	private synchronized ForkJoinPool getPool() {
+		if (pool == null || pool.getParallelism() != parallelism) {
+			if (pool != null)
+				pool.shutdown();
+			pool = new ForkJoinPool(parallelism);
+		}
+		return pool;
+	}
+	
+	private static void runWorker(Callable<Void> worker) {
+		try {
+			worker.call();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
 	}
 
-	private void recountLowMemoryDistances(int i){
-		lowMemorySpRoot = i;
-		lowMemorySpLength = new double[g.size()];
-		lowMemorySpNumber = new int[g.size()];
-		lowMemorySpStep = new Integer[g.size()];
-		for (int k = 0; k < lowMemorySpLength.length; ++k)
-			lowMemorySpLength[k] = Double.POSITIVE_INFINITY;
-		findDistancesFrom(i, lowMemorySpLength, lowMemorySpNumber, lowMemorySpStep);
+	/**
+	 * Row of distances, numbers of shortest paths and first steps from the given node (taken from the cache).
+	 */
+	protected Row getRow(int from) {
+		return rows.get(((long)version << 32) | from, k -> {
+			double[] length = new double[g.size()];
+			int[] number = new int[g.size()];
+			int[] step = new int[g.size()];
+			Arrays.fill(length, Double.POSITIVE_INFINITY);
+			Arrays.fill(step, -1);
+			findDistancesFrom(from, length, number, step, new int[g.size()], new IndexedHeap(g.size()));
+			return new Row(length, number, step, offHeapRows);
+		});
+	}
+	
+	/**
+	 * Row of distances and numbers of shortest paths to the given node (taken from the cache).
+	 */
+	protected Row getReversedRow(int to) {
+		return rows.get(((long)version << 32) | (-1L - to) & 0xFFFFFFFFL, k -> {
+			double[] length = new double[g.size()];
+			int[] number = new int[g.size()];
+			Arrays.fill(length, Double.POSITIVE_INFINITY);
+			findDistancesTo(to, length, number);
+			return new Row(length, number, null, offHeapRows);
+		});
+	}
+	
+	/**
+	 * Checks whether all edges have length 1, in which case distances are computed using breadth-first search.
+	 * Subclasses that override edgeLength should override this method as well.
+	 */
+	protected boolean unitEdgeLength() {
+		return getClass() == ShortestPaths.class;
 	}
 	
-	private void findDistancesFrom(int from, double[] dist, int[] paths, Integer step[]){
+	private void findDistancesFrom(int from, double[] dist, int[] paths, int[] step, int[] queue, IndexedHeap q){
+		if (unitEdgeLength()) {
+			dist[from] = 0;
+			paths[from] = 1;
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = from;
+			while (head < tail) {
+				int i = queue[head++];
+				double d = dist[i] + 1;
+				for (int j : g.getSuccs(i))
+					if (d < dist[j]) {
+						dist[j] = d;
+						queue[tail++] = j;
+						paths[j] = paths[i];
+						step[j] = i == from ? j : step[i];
+					} else if (d == dist[j])
+						paths[j] += paths[i];
+			}
+			return;
+		}
 		dist[from] = 0;
 		paths[from] = 1;
-		PriorityQueue<Integer> q = new PriorityQueue<>(1, (o1,o2) -> Double.compare(dist[o1], dist[o2]));
-		q.add(from);
+		q.put(from, 0);
 		while (!q.isEmpty()) {
 			int i = q.poll();
 			for (int j : g.getSuccs(i))
 				if (dist[i] + edgeLength(i, j) < dist[j]){
 					dist[j] = dist[i] + edgeLength(i, j);
-					q.remove(j);
-					q.add(j);
+					q.put(j, dist[j]);
 					paths[j] = paths[i];
 					step[j] = i == from ? j : step[i];
 				} else if (dist[i] + edgeLength(i, j) == dist[j])
@@ -178,83 +319,234 @@ public class ShortestPaths implements GraphChangeListener {
 
 	@Override
 	public void notifyAdd(Graph g, Edge e) {
-		reactNotify();
+		if (!unitEdgeLength()) {
+			reactNotify();
+			return;
+		}
+		double[][] length = spLength;
+		if (length != null) {
+			if (length[e.i()][e.j()] <= 1)
+				return;
+			insertUnitEdge(e);
+		} else {
+			Row row = rows.getIfPresent(((long)version << 32) | e.i());
+			if (row != null && row.length(e.j()) <= 1)
+				return;
+		}
+		++version;
+		rows.clear();
 	}
 
 	@Override
 	public void notifyRemove(Graph g, Edge e) {
-		reactNotify();
+		if (g.containsEdge(e))
+			return;
+		if (!unitEdgeLength()) {
+			reactNotify();
+			return;
+		}
+		int[] arcs = arcs(e);
+		if (spLength != null) {
+			int[] affected = g.nodesStream().filter(s -> usesArc(spLength[s], arcs, false)).toArray();
+			computeRows(affected, spLength, spNumber, spStep);
+		}
+		rows.invalidateIf((k, row) -> usesArc(row, arcs, row.isReversed()));
 	}
 
 	@Override
 	public void notifyReset(Graph g) {
-		reactNotify();
+		// all reverted changes have already been reported separately
+	}
+	
+	/**
+	 * Arcs (as consecutive pairs of nodes) that correspond to the given edge.
+	 */
+	private int[] arcs(Edge e) {
+		return g.isDirected() ? new int[] {e.i(), e.j()} : new int[] {e.i(), e.j(), e.j(), e.i()};
+	}
+	
+	/**
+	 * Checks whether any of the unit-length arcs lies on a shortest path from (or, if reversed, to) the root of the row.
+	 */
+	private static boolean usesArc(double[] length, int[] arcs, boolean reversed) {
+		for (int a = 0; a < arcs.length; a += 2) {
+			int x = reversed ? arcs[a + 1] : arcs[a];
+			int y = reversed ? arcs[a] : arcs[a + 1];
+			if (length[x] < Double.POSITIVE_INFINITY && length[y] == length[x] + 1)
+				return true;
+		}
+		return false;
+	}
+	
+	private static boolean usesArc(Row row, int[] arcs, boolean reversed) {
+		for (int a = 0; a < arcs.length; a += 2) {
+			int x = reversed ? arcs[a + 1] : arcs[a];
+			int y = reversed ? arcs[a] : arcs[a + 1];
+			if (row.length(x) < Double.POSITIVE_INFINITY && row.length(y) == row.length(x) + 1)
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Updates all-pairs distances, numbers of shortest paths and steps after inserting an edge of unit length.
+	 * A shortest path that uses a new arc x->y consists of an old shortest path to x and an old shortest path from y,
+	 * so it suffices to combine the old column of x with the old row of y.
+	 */
+	private void insertUnitEdge(Edge e) {
+		int n = g.size();
+		int[] arcs = arcs(e);
+		int k = arcs.length / 2;
+		double[][] toX = new double[k][n];
+		int[][] numberToX = new int[k][n];
+		int[][] stepToX = new int[k][n];
+		double[][] fromY = new double[k][];
+		int[][] numberFromY = new int[k][];
+		for (int a = 0; a < k; ++a) {
+			int x = arcs[2 * a];
+			int y = arcs[2 * a + 1];
+			for (int s = 0; s < n; ++s) {
+				toX[a][s] = spLength[s][x];
+				numberToX[a][s] = spNumber[s][x];
+				stepToX[a][s] = spStep[s][x];
+			}
+			fromY[a] = spLength[y].clone();
+			numberFromY[a] = spNumber[y].clone();
+		}
+		for (int s = 0; s < n; ++s)
+			for (int a = 0; a < k; ++a) {
+				if (toX[a][s] == Double.POSITIVE_INFINITY)
+					continue;
+				int y = arcs[2 * a + 1];
+				int firstStep = s == arcs[2 * a] ? y : stepToX[a][s];
+				for (int t = 0; t < n; ++t) {
+					double d = toX[a][s] + 1 + fromY[a][t];
+					if (d < spLength[s][t]) {
+						spLength[s][t] = d;
+						spNumber[s][t] = numberToX[a][s] * numberFromY[a][t];
+						spStep[s][t] = firstStep;
+					} else if (d == spLength[s][t])
+						spNumber[s][t] += numberToX[a][s] * numberFromY[a][t];
+				}
+			}
 	}
 	
 	protected void reactNotify(){
 		this.spLength = null;
 		this.spNumber = null;
 		this.spStep = null;
-		this.lowMemorySpRoot = -1;
-		this.lowMemorySpLength = null;
-		this.lowMemorySpNumber = null;
-		this.lowMemorySpStep = null;
-		this.reversedLowMemorySpRoot = -1;
-		this.reversedLowMemorySpLength = null;
-		this.reversedLowMemorySpNumber = null;
+		++this.version;
+		this.rows.clear();
 	}
 	
 	// Methods for finding shortest paths *leading to* a given node in a linear memory
 	
-	protected int reversedLowMemorySpRoot;
-	protected double[] reversedLowMemorySpLength;
-	protected int[] reversedLowMemorySpNumber;
-	
 	public double getReversedLowMemoryDistance(int from, int to){
-		if (reversedLowMemorySpRoot != to)
-			recountReversedLowMemoryDistances(to);
-		return reversedLowMemorySpLength[from];
+		return getReversedRow(to).length(from);
 	}
 
 	public int getReversedLowMemoryNumberOfShortestPaths(int from, int to){
-		if (reversedLowMemorySpRoot != to)
-			recountReversedLowMemoryDistances(to);
-		return reversedLowMemorySpNumber[from];
+		return getReversedRow(to).number(from);
 	}
 	
 	public Path getReversedLowMemoryShortestPath(int from, int to){
-		if (reversedLowMemorySpRoot != to)
-			recountReversedLowMemoryDistances(to);
+		Row row = getReversedRow(to);
 		Path p = new Path(from);
 		while (p.getLast() != to)
-			p.add(Utils.argmin(g.getSuccs(p.getLast()), i -> reversedLowMemorySpLength[i] + edgeLength(p.getLast(), i)));
+			p.add(Utils.argmin(g.getSuccs(p.getLast()), i -> row.length(i) + edgeLength(p.getLast(), i)));
 		return p;
 	}
 	
-	private void recountReversedLowMemoryDistances(int to){
-		reversedLowMemorySpRoot = to;
-		reversedLowMemorySpLength = new double[g.size()];
-		reversedLowMemorySpNumber = new int[g.size()];
-		for (int k = 0; k < reversedLowMemorySpLength.length; ++k)
-			reversedLowMemorySpLength[k] = Double.POSITIVE_INFINITY;
-		findDistancesTo(to, reversedLowMemorySpLength, reversedLowMemorySpNumber);
-	}
-	
 	private void findDistancesTo(int to, double[] dist, int[] paths){
+		if (unitEdgeLength()) {
+			dist[to] = 0;
+			paths[to] = 1;
+			int[] queue = new int[g.size()];
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = to;
+			while (head < tail) {
+				int i = queue[head++];
+				double d = dist[i] + 1;
+				for (int j : g.getPreds(i))
+					if (d < dist[j]) {
+						dist[j] = d;
+						queue[tail++] = j;
+						paths[j] = paths[i];
+					} else if (d == dist[j])
+						paths[j] += paths[i];
+			}
+			return;
+		}
 		dist[to] = 0;
 		paths[to] = 1;
-		PriorityQueue<Integer> q = new PriorityQueue<>(1, (o1,o2) -> Double.compare(dist[o1], dist[o2]));
-		q.add(to);
+		IndexedHeap q = new IndexedHeap(g.size());
+		q.put(to, 0);
 		while (!q.isEmpty()) {
 			int i = q.poll();
 			for (int j : g.getPreds(i))
 				if (dist[i] + edgeLength(j, i) < dist[j]){
 					dist[j] = dist[i] + edgeLength(j, i);
-					q.remove(j);
-					q.add(j);
+					q.put(j, dist[j]);
 					paths[j] = paths[i];
 				} else if (dist[i] + edgeLength(j, i) == dist[j])
 					paths[j] += paths[i];
 		}
 	}
+	
+	/**
+	 * Distances, numbers of shortest paths and first steps from (or to) a single node,
+	 * stored either in heap arrays or in direct buffers.
+	 */
+	public static class Row {
+		
+		private DoubleBuffer length;
+		private IntBuffer number;
+		private IntBuffer step;
+		
+		public Row(double[] length, int[] number, int[] step, boolean offHeap) {
+			if (offHeap) {
+				this.length = ByteBuffer.allocateDirect(8 * length.length).order(ByteOrder.nativeOrder()).asDoubleBuffer().put(length);
+				this.number = ByteBuffer.allocateDirect(4 * number.length).order(ByteOrder.nativeOrder()).asIntBuffer().put(number);
+				this.step = step == null ? null
+						: ByteBuffer.allocateDirect(4 * step.length).order(ByteOrder.nativeOrder()).asIntBuffer().put(step);
+			} else {
+				this.length = DoubleBuffer.wrap(length);
+				this.number = IntBuffer.wrap(number);
+				this.step = step == null ? null : IntBuffer.wrap(step);
+			}
+		}
+		
+		public double length(int j) {
+			return length.get(j);
+		}
+		
+		public int number(int j) {
+			return number.get(j);
+		}
+		
+		public int step(int j) {
+			return step.get(j);
+		}
+		
+		public double[] lengths() {
+			if (length.hasArray())
+				return length.array();
+			double[] res = new double[length.capacity()];
+			length.get(0, res);
+			return res;
+		}
+		
+		public long bytes() {
+			return 8L * length.capacity() + 4L * number.capacity() + (step == null ? 0 : 4L * step.capacity());
+		}
+		
+		public boolean isReversed() {
+			return step == null;
+		}
+		
+		public boolean isOffHeap() {
+			return length.isDirect();
+		}
+	}
 }
@@ -1,10 +1,11 @@
 package anansi.epidemic;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
 
 import anansi.core.Coalition;
 import anansi.core.Graph;
+import anansi.utils.RandomSource;
 
 /**
  * Representation of an epidemic diffusion model.
@@ -13,11 +14,14 @@ import anansi.core.Graph;
  */
 public abstract class EpidemicModel {
 
+	public static final int NOT_INFECTED = Integer.MAX_VALUE;
+
 	protected Coalition infected;
-	protected Map<Integer,Integer> infectionTime;
+	protected int[] infectionTime;
 	protected int t;
 	protected Graph g;
 	protected int diffusionRounds;
+	protected RandomGenerator rand;
 	
 	public EpidemicModel(int diffusionRounds) {
 		this.infected = null;
@@ -25,10 +29,22 @@ public abstract class EpidemicModel {
 		this.t = 0;
 		this.g = null;
 		this.diffusionRounds = diffusionRounds;
+		this.rand = null;
 	}
 	
 	public abstract String getName();
 	
+	/**
+	 * Sets the generator used by the model (by default, the generator bound to the current thread).
+	 */
+	public void setRandom(RandomGenerator rand) {
+		this.rand = rand;
+	}
+	
+	protected RandomGenerator rand() {
+		return rand == null ? RandomSource.get() : rand;
+	}
+	
 	public abstract double getBasicProbability();
 	
 	protected abstract Coalition executeOneStep();
@@ -37,8 +53,28 @@ public abstract class EpidemicModel {
 		return infected;
 	}
 	
+	/**
+	 * Infection time of node i, or null if it has not been infected.
+	 */
 	public Integer getInfectionTime(int i) {
-		return infectionTime.get(i);
+		int res = getInfectionTimeInt(i);
+		return res == NOT_INFECTED ? null : res;
+	}
+	
+	/**
+	 * Infection time of node i, or NOT_INFECTED if it has not been infected (which is later than any other time).
+	 */
+	public int getInfectionTimeInt(int i) {
+		return i < infectionTime.length ? infectionTime[i] : NOT_INFECTED;
+	}
+	
+	protected void setInfectionTime(int i, int t) {
+		if (i >= infectionTime.length) {
+			int oldLength = infectionTime.length;
+			infectionTime = Arrays.copyOf(infectionTime, Math.max(i + 1, 2 * oldLength));
+			Arrays.fill(infectionTime, oldLength, infectionTime.length, NOT_INFECTED);
+		}
+		infectionTime[i] = t;
 	}
 	
 	public int getTime() {
@@ -75,8 +111,9 @@ public abstract class EpidemicModel {
 	public void startDiffusion(Coalition source, Graph g) {
 		this.g = g;
 		infected = new Coalition(source);
-		infectionTime = new HashMap<>();
-		source.forEach(i -> infectionTime.put(i, 0));
+		infectionTime = new int[g.size()];
+		Arrays.fill(infectionTime, NOT_INFECTED);
+		source.forEach(i -> setInfectionTime(i, 0));
 		t = 0;
 	}
 	
@@ -87,7 +124,7 @@ public abstract class EpidemicModel {
 	public Coalition runRound() {
 		Coalition newlyInfected = executeOneStep();
 		++t;
-		newlyInfected.forEach(i -> infectionTime.put(i, t));
+		newlyInfected.forEach(i -> setInfectionTime(i, t));
 		return newlyInfected;
 	}
 	
@@ -0,0 +1,93 @@
+package anansi.epidemic;
+
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+import anansi.core.Coalition;
+import anansi.core.Graph;
+import anansi.core.ParallelMonteCarloAlgorithm;
+
+/**
+ * Estimating the probability that each node gets infected in a diffusion from the given source,
+ * by running simulations of the epidemic model in parallel. Every chunk of simulations uses its own model.
+ *
+ * @author Marcin Waniek
+ */
+public class InfectionProbabilityEstimator extends ParallelMonteCarloAlgorithm<InfectionProbabilityEstimator.Counts> {
+
+	private Graph g;
+	private Coalition source;
+	private Supplier<? extends EpidemicModel> model;
+	private long[] infections;
+	private long runs;
+
+	public InfectionProbabilityEstimator(Graph g, Coalition source, Supplier<? extends EpidemicModel> model) {
+		this.g = g;
+		this.source = source;
+		this.model = model;
+		this.infections = new long[g.size()];
+		this.runs = 0;
+	}
+
+	@Override
+	protected void preProcess() {
+		infections = new long[g.size()];
+		runs = 0;
+	}
+
+	@Override
+	protected Counts createAccumulator() {
+		return new Counts(model.get(), g.size());
+	}
+
+	@Override
+	protected void singleMCIteration(Counts acc, RandomGenerator rand) {
+		acc.model.runDiffusion(source, g);
+		for (int i = 0; i < g.size(); ++i)
+			if (acc.model.getInfectionTimeInt(i) != EpidemicModel.NOT_INFECTED)
+				++acc.infections[i];
+		++acc.runs;
+	}
+
+	@Override
+	protected void merge(Counts acc) {
+		for (int i = 0; i < g.size(); ++i)
+			infections[i] += acc.infections[i];
+		runs += acc.runs;
+	}
+
+	/**
+	 * Expected number of infected nodes.
+	 */
+	@Override
+	protected double getControlSum(int iter) {
+		long res = 0;
+		for (long x : infections)
+			res += x;
+		return (double)res / runs;
+	}
+
+	public double getProbability(int i) {
+		return runs == 0 ? 0. : (double)infections[i] / runs;
+	}
+
+	public double[] getProbabilities() {
+		double[] res = new double[g.size()];
+		for (int i = 0; i < g.size(); ++i)
+			res[i] = getProbability(i);
+		return res;
+	}
+
+	protected static class Counts {
+
+		private EpidemicModel model;
+		private long[] infections;
+		private long runs;
+
+		public Counts(EpidemicModel model, int n) {
+			this.model = model;
+			this.infections = new long[n];
+			this.runs = 0;
+		}
+	}
+}
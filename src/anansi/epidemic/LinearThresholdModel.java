@@ -2,7 +2,6 @@ package anansi.epidemic;
 
 import anansi.core.Coalition;
 import anansi.core.Graph;
-import anansi.utils.Utils;
 
 /**
  * Linear threshold epidemic cascade model. 
@@ -47,7 +46,7 @@ public class LinearThresholdModel extends EpidemicModel {
 		super.startDiffusion(source, g);
 		thresholds = new double[g.size()];
 		for (int i : g.nodes())
-			thresholds[i] = Utils.RAND.nextDouble();
+			thresholds[i] = rand().nextDouble();
 		infectedNeighs = new int[g.size()];
 		halo = new Coalition();
 		for (int i : source)
@@ -2,7 +2,6 @@ package anansi.epidemic;
 
 import anansi.core.Coalition;
 import anansi.core.Graph;
-import anansi.utils.Utils;
 
 /**\
  * The SERIHD model of COVID-19 based on Rusu et al. (without the tracing component).
@@ -101,7 +100,7 @@ public class SEIRHDCovidModel extends EpidemicModel {
 	protected Coalition executeOneStep() {
 		// H->D and H->R
 		hospitalized.filter(i -> {
-			double r = Utils.RAND.nextDouble();
+			double r = rand().nextDouble();
 			if (r < LAMBDA_HD + LAMBDA_HR) {
 				if (r < LAMBDA_HD)
 					dead.add(i);
@@ -114,8 +113,8 @@ public class SEIRHDCovidModel extends EpidemicModel {
 		
 		// Is->H and Is->R
 		infectedSympt.filter(i -> {
-			if (Utils.RAND.nextDouble() < GAMMA) {
-				if (Utils.RAND.nextDouble() < P_H)
+			if (rand().nextDouble() < GAMMA) {
+				if (rand().nextDouble() < P_H)
 					hospitalized.add(i);
 				else
 					recovered.add(i);
@@ -126,7 +125,7 @@ public class SEIRHDCovidModel extends EpidemicModel {
 		
 		// Ia->R
 		infectedAsympt.filter(i -> {
-			if (Utils.RAND.nextDouble() < GAMMA) {
+			if (rand().nextDouble() < GAMMA) {
 				recovered.add(i);
 				return false;
 			} else
@@ -135,8 +134,8 @@ public class SEIRHDCovidModel extends EpidemicModel {
 		
 		// Ip -> Ia and Ip -> Is
 		infected.filter(i -> {
-			if (Utils.RAND.nextDouble() < MU_P) {
-				if (Utils.RAND.nextDouble() < P_A)
+			if (rand().nextDouble() < MU_P) {
+				if (rand().nextDouble() < P_A)
 					infectedAsympt.add(i);
 				else
 					infectedSympt.add(i);
@@ -148,7 +147,7 @@ public class SEIRHDCovidModel extends EpidemicModel {
 		// E->Ip
 		Coalition newlyInfected = new Coalition();
 		exposed.filter(i -> {
-			if (Utils.RAND.nextDouble() < EPSILON) {
+			if (rand().nextDouble() < EPSILON) {
 				newlyInfected.add(i);
 				return false;
 			} else
@@ -158,7 +157,7 @@ public class SEIRHDCovidModel extends EpidemicModel {
 		
 		// S->E
 		susceptible.filter(i -> {
-			if (Utils.RAND.nextDouble() < BETA * g.getPreds(i).stream()
+			if (rand().nextDouble() < BETA * g.getPreds(i).stream()
 					.filter(j -> infected.contains(j) || infectedAsympt.contains(j) || infectedSympt.contains(j)).count()) {
 				exposed.add(i);
 				return false;
@@ -1,7 +1,6 @@
 package anansi.epidemic;
 
 import anansi.core.Coalition;
-import anansi.utils.Utils;
 
 /**
  * Susceptible-Infected epidemic diffusion model.
@@ -38,7 +37,7 @@ public class SIModel extends EpidemicModel {
 		Coalition res = new Coalition();
 		for (int i : infected)
 			for (int j : g.getSuccs(i))
-				if (!infected.contains(j) && Utils.RAND.nextDouble() <= infectionProb)
+				if (!infected.contains(j) && rand().nextDouble() <= infectionProb)
 					res.add(j);
 		return res;
 	}
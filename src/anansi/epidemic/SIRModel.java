@@ -2,7 +2,6 @@ package anansi.epidemic;
 
 import anansi.core.Coalition;
 import anansi.core.Graph;
-import anansi.utils.Utils;
 
 /**
  * Susceptible-Infected-Recovered epidemic diffusion model.
@@ -39,7 +38,7 @@ public class SIRModel extends SIModel {
 	protected Coalition executeOneStep() {
 		Coalition newlyInfected = getNewlyInfected();
 		newlyInfected.filter(i -> !recovered.contains(i));
-		Coalition newlyResistant = infected.stream().filter(i -> Utils.RAND.nextDouble() <= recoveryProb)
+		Coalition newlyResistant = infected.stream().filter(i -> rand().nextDouble() <= recoveryProb)
 				.boxed().collect(Coalition.getCollector());
 		infected.add(newlyInfected);
 		infected.remove(newlyResistant);
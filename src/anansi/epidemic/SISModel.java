@@ -1,7 +1,6 @@
 package anansi.epidemic;
 
 import anansi.core.Coalition;
-import anansi.utils.Utils;
 
 /**
  * Susceptible-Infected-Susceptible epidemic diffusion model.
@@ -25,7 +24,7 @@ public class SISModel extends SIModel {
 	@Override
 	protected Coalition executeOneStep() {
 		Coalition newlyInfected = getNewlyInfected();
-		infected.filter(i -> Utils.RAND.nextDouble() <= 1. - resetProb);
+		infected.filter(i -> rand().nextDouble() <= 1. - resetProb);
 		infected.add(newlyInfected);
 		return newlyInfected;
 	}
@@ -2,7 +2,6 @@ package anansi.epidemic;
 
 import anansi.core.Coalition;
 import anansi.core.Graph;
-import anansi.utils.Utils;
 
 /**
  * Susceptible-Infected epidemic diffusion model with vaccinated state.
@@ -39,7 +38,7 @@ public class SIVacModel extends SIModel {
 		for (int i : infected)
 			if (!vaccinated.contains(i))
 				for (int j : g.getSuccs(i))
-					if (!infected.contains(j) && !vaccinated.contains(j) && Utils.RAND.nextDouble() <= infectionProb)
+					if (!infected.contains(j) && !vaccinated.contains(j) && rand().nextDouble() <= infectionProb)
 						res.add(j);
 		return res;
 	}
@@ -14,6 +14,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -33,6 +34,8 @@ public class ExperimentResult implements Iterable<Row> {
 
 	public static final String RES_FILE = "res.csv";
 	
+	private static final Set<String> issuedIds = ConcurrentHashMap.newKeySet();
+	
 	private String resultId;
 	private File resultDir;
 	
@@ -55,7 +58,7 @@ public class ExperimentResult implements Iterable<Row> {
 	public ExperimentResult(String experimentName, boolean timestamp, String resultsDirPath,
 			List<String> header, List<String> colNames){
 		if (timestamp)
-			this.resultId = experimentName + "-" + Utils.timestamp();
+			this.resultId = uniqueId(experimentName + "-" + Utils.timestamp());
 		else
 			this.resultId = experimentName;
 		this.resultDir = Paths.get(resultsDirPath, resultId).toFile();
@@ -65,6 +68,16 @@ public class ExperimentResult implements Iterable<Row> {
 		this.otherFiles = new ArrayList<>();
 	}
 	
+	/**
+	 * Timestamped identifiers of results created concurrently may coincide, so repeated ones get a numeric suffix.
+	 */
+	private static String uniqueId(String id) {
+		String res = id;
+		for (int k = 2; !issuedIds.add(res); ++k)
+			res = id + "-" + k;
+		return res;
+	}
+	
 	/**
 	 * Constructor for creating new result.
 	 */	
@@ -164,9 +177,15 @@ public class ExperimentResult implements Iterable<Row> {
 	}
 	
 	public Row addRowDontPrint(Object... elems){
+		return addRowDirectlyDontPrint(createRow(colNames, elems));
+	}
+	
+	/**
+	 * Creates a row with the given columns without adding it to any result.
+	 */
+	public static Row createRow(List<String> colNames, Object... elems){
 		assert(elems.length == colNames.size());
-		return addRowDirectlyDontPrint(new Row(colNames, 
-				Arrays.stream(elems).map(o -> o == null ? "NULL" : o).collect(Collectors.toList())));
+		return new Row(colNames, Arrays.stream(elems).map(o -> o == null ? "NULL" : o).collect(Collectors.toList()));
 	}
 	
 	public Row addRowDirectly(Row r){
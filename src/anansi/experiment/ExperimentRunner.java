@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import anansi.core.Graph;
@@ -65,6 +66,23 @@ public abstract class ExperimentRunner {
 			runSingle(params);
 	}
 	
+	/**
+	 * Scheduler of replicates of this experiment, described as in {@link ReplicateScheduler#of(String, long)}.
+	 */
+	public ReplicateScheduler scheduler(String threads){
+		return ReplicateScheduler.of(threads, getDirectoryName().hashCode());
+	}
+	
+	/**
+	 * Runs replicates concurrently, each on a new graph created by the replicate itself.
+	 */
+	public void runManyConcurrently(Supplier<? extends Graph> graph, int times, String threads, Object... params){
+		try (ReplicateScheduler s = scheduler(threads)) {
+			for (int i = 0; i < times; ++i)
+				s.submit(() -> runSingle(Utils.concat(new Object[] {graph.get()}, params)));
+		}
+	}
+	
 	public void runBarabasiAlbertDirected(int n, int avgDegree, int times, boolean directed, Object... params){
 		for (int i = 0; i < times; ++i)
 			runSingle(Utils.concat(
@@ -0,0 +1,142 @@
+package anansi.experiment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.random.RandomGenerator;
+
+import anansi.utils.RandomSource;
+
+/**
+ * Running replicates of experiments concurrently.
+ * At most a given number of replicates is in progress at any time, and submitting blocks until a slot is free,
+ * so that graphs of pending replicates are not generated in advance. Every replicate runs with its own random
+ * generator derived from the root seed and the number of the replicate, so given the seed the results do not depend
+ * on the number of threads. With a single thread replicates are run by the submitting thread.
+ *
+ * @author Marcin Waniek
+ */
+public class ReplicateScheduler implements AutoCloseable {
+
+	public static final String VIRTUAL = "virtual";
+
+	private ExecutorService executor;
+	private Semaphore slots;
+	private List<Future<?>> pending;
+	private long stream;
+	private long submitted;
+
+	private ReplicateScheduler(ExecutorService executor, int threads, long stream) {
+		this.executor = executor;
+		this.slots = new Semaphore(Math.max(1, threads));
+		this.pending = new ArrayList<>();
+		this.stream = stream;
+		this.submitted = 0;
+	}
+
+	/**
+	 * Scheduler running replicates on a fixed pool of threads.
+	 */
+	public static ReplicateScheduler fixed(int threads, long stream) {
+		return new ReplicateScheduler(threads > 1 ? Executors.newFixedThreadPool(threads) : null, threads, stream);
+	}
+
+	/**
+	 * Scheduler running every replicate on a new virtual thread (or a new platform thread, if virtual threads
+	 * are not supported by the runtime), with at most the given number of replicates in progress.
+	 */
+	public static ReplicateScheduler virtual(int maxConcurrent, long stream) {
+		ExecutorService executor;
+		try {
+			executor = (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			executor = Executors.newCachedThreadPool();
+		}
+		return new ReplicateScheduler(executor, maxConcurrent, stream);
+	}
+
+	/**
+	 * Scheduler described by a number of threads (e.g., "16"), or "virtual" optionally followed by the maximal number
+	 * of replicates in progress (e.g., "virtual:64"), which by default is the number of processors.
+	 */
+	public static ReplicateScheduler of(String desc, long stream) {
+		if (desc.startsWith(VIRTUAL))
+			return virtual(desc.length() > VIRTUAL.length() ? Integer.parseInt(desc.substring(VIRTUAL.length() + 1))
+					: Runtime.getRuntime().availableProcessors(), stream);
+		return fixed(Integer.parseInt(desc), stream);
+	}
+
+	/**
+	 * Runs the replicate, or schedules it to be run once a slot is free.
+	 */
+	public void submit(Runnable replicate) {
+		ReplicateTask task = new ReplicateTask(replicate, RandomSource.derive(stream, submitted++));
+		if (executor == null) {
+			task.run();
+			return;
+		}
+		slots.acquireUninterruptibly();
+		try {
+			pending.add(executor.submit(task));
+		} catch (RuntimeException e) {
+			slots.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Waits for all submitted replicates to finish; rethrows the first failure (in the order of submission).
+	 */
+	public void await() {
+		RuntimeException failure = null;
+		for (Future<?> f : pending)
+			try {
+				f.get();
+			} catch (ExecutionException e) {
+				if (failure == null)
+					failure = e.getCause() instanceof RuntimeException ? (RuntimeException)e.getCause()
+							: new RuntimeException(e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+		pending.clear();
+		if (failure != null)
+			throw failure;
+	}
+
+	@Override
+	public void close() {
+		try {
+			await();
+		} finally {
+			if (executor != null)
+				executor.shutdown();
+		}
+	}
+
+	private class ReplicateTask implements Runnable {
+
+		private Runnable replicate;
+		private RandomGenerator rand;
+
+		public ReplicateTask(Runnable replicate, RandomGenerator rand) {
+			this.replicate = replicate;
+			this.rand = rand;
+		}
+
+		@Override
+		public void run() {
+			try {
+				RandomSource.with(rand, replicate);
+			} finally {
+				if (executor != null)
+					slots.release();
+			}
+		}
+	}
+}
@@ -1,13 +1,21 @@
 package anansi.experiment.ctracing;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import anansi.core.Coalition;
+import anansi.core.DenseCoalition;
 import anansi.experiment.Experiment;
 import anansi.experiment.ExperimentResult;
+import anansi.experiment.Row;
 import anansi.temporal.TemporalGraph;
+import anansi.temporal.Timeline;
 import anansi.temporal.epidemic.TemporalEpidemicModel;
+import anansi.utils.RandomSource;
 import anansi.utils.Utils;
 
 public class ExPostContactTracingExperiment extends Experiment {
@@ -63,13 +71,41 @@ public class ExPostContactTracingExperiment extends Experiment {
 	protected void perform(ExperimentResult res) {
 		Coalition initDetected = genInitDetected(g.getT());
 		preTracing(res);
+		traceGrid(res, initDetected, this::postTracing);
+	}
+	
+	/**
+	 * Runs tracing for all combinations of budgets, breadths and window offsets concurrently. Every combination starts
+	 * from its own copy of the initially detected nodes and uses its own random generator, and its rows are added
+	 * to the result (and printed) in the order of the grid.
+	 */
+	protected void traceGrid(ExperimentResult res, Coalition initDetected, TracingSummary summary) {
+		List<int[]> grid = new ArrayList<>();
 		for (int budget : budgets)
 			for (int breadth : breadths)
-				for (int window : windowOffsets){
-					Coalition detected = new Coalition(initDetected);
-					runTracing(em, detected, budget, breadth, window);
-					postTracing(res, budget, breadth, window, detected);
-				}
+				for (int window : windowOffsets)
+					grid.add(new int[] {budget, breadth, window});
+		long stream = RandomSource.get().nextLong();
+		List<List<Row>> cellRows = IntStream.range(0, grid.size()).parallel()
+				.mapToObj(c -> RandomSource.with(RandomSource.derive(stream, c), () -> {
+					int[] cell = grid.get(c);
+					List<Row> rows = new ArrayList<>();
+					Coalition detected = new DenseCoalition(g.size(), initDetected);
+					runTracing(em, detected, cell[0], cell[1], cell[2]);
+					summary.addRows(rows, cell[0], cell[1], cell[2], detected);
+					return rows;
+				}))
+				.collect(Collectors.toList());
+		cellRows.forEach(rows -> rows.forEach(res::addRowDirectly));
+	}
+	
+	/**
+	 * Adds a row to the rows of a single grid cell, which are added to the result by traceGrid.
+	 */
+	protected Row addRow(List<Row> rows, Object... elems) {
+		Row r = ExperimentResult.createRow(getColumnNames(), elems);
+		rows.add(r);
+		return r;
 	}
 	
 	protected Coalition genInitDetected(int totalTime) {
@@ -81,8 +117,8 @@ public class ExPostContactTracingExperiment extends Experiment {
 			everInfected = em.getEverInfectedAndAlive();
 		} while (everInfected.size() < g.size() / 10);
 		Coalition potInitDetected = everInfected.stream().boxed()
-				.sorted((i, j) -> em.getInfectionTime(i).compareTo(em.getInfectionTime(j)))
-				.skip((int)(everInfected.size() * INIT_REVEAL_EXEMPT_PERC)).collect(Coalition.getCollector());
+				.sorted(Comparator.comparingInt(em::getInfectionTimeInt))
+				.skip((int)(everInfected.size() * INIT_REVEAL_EXEMPT_PERC)).collect(DenseCoalition.getCollector(g.size()));
 		return potInitDetected.getRandom(INIT_DETECTED_SIZE);
 	}
 	
@@ -95,11 +131,11 @@ public class ExPostContactTracingExperiment extends Experiment {
 	}
 	
 	protected void runTracing(TemporalEpidemicModel em, Coalition detected, int budget, int breadth, int window) {
-		Coalition tested = new Coalition(detected);
+		Coalition tested = new DenseCoalition(g.size(), detected);
+		Coalition infectedAlive = em.getEverInfectedAndAlive();
 		int balance = budget;
-		PriorityQueue<Integer> traceQ = new PriorityQueue<>(
-				(i,j) -> em.getInfectionTime(i).compareTo(em.getInfectionTime(j)));
-		traceQ.addAll(detected.getNodes());			
+		PriorityQueue<Integer> traceQ = new PriorityQueue<>(Comparator.comparingInt(em::getInfectionTimeInt));
+		traceQ.addAll(detected.asList());			
 		while (balance > 0 && !traceQ.isEmpty()) {	
 			Coalition newDetected = new Coalition();
 			for (int ix = 0; ix < breadth && !traceQ.isEmpty() && balance > 0; ++ix){
@@ -107,7 +143,7 @@ public class ExPostContactTracingExperiment extends Experiment {
 				Coalition potTest = traceContacts(i, window, em, g.getT()).remove(tested);
 				for (int j : potTest.getRandom(TESTED_PER_TRACE)){
 					tested.add(j);
-					if (em.getEverInfectedAndAlive().contains(j))
+					if (infectedAlive.contains(j))
 						newDetected.add(j);
 				}
 				--balance;
@@ -119,21 +155,30 @@ public class ExPostContactTracingExperiment extends Experiment {
 	
 	protected Coalition traceContacts(int i, int window, TemporalEpidemicModel em, int tracingTime) {
 		Coalition res = new Coalition();
-		int t0 = Math.min(g.getT(), em.getInfectionTime(i) + window);
-		for (int t = t0; t > t0 - WINDOW_SIZE; --t) {
-			double rememberProb = Math.exp(-MEMORY_DEGRADATION * (tracingTime - t));
-			for (int j : g.getTPreds(i, t))
-				if (Utils.RAND.nextDouble() < rememberProb)
+		int t0 = Math.min(g.getT(), em.getInfectionTimeInt(i) + window);
+		int t1 = Math.min(t0, g.getT() - 1);
+		for (int j : g.getPreds(i)) {
+			Timeline w = g.w(j, i);
+			if (w.containsAny(t0 - WINDOW_SIZE + 1, t1)) {
+				double forgetProb = w.stream(t0 - WINDOW_SIZE + 1, t1)
+						.mapToDouble(t -> 1. - Math.exp(-MEMORY_DEGRADATION * (tracingTime - t)))
+						.reduce(1., (a, b) -> a * b);
+				if (RandomSource.get().nextDouble() >= forgetProb)
 					res.add(j);
+			}
 		}
 		return res;
 	}
 	
-	protected void postTracing(ExperimentResult res, int budget, int breadth, int window, Coalition detected) {
-		int detSrc = Utils.argmin(detected, i -> em.getInfectionTime(i));
-		res.addRow(budget, breadth, window, "everDetected", detected.size());
-		res.addRow(budget, breadth, window, "nowDetected", detected.inplaceIntersect(em.getNowInfected()).count());
-		res.addRow(budget, breadth, window, "srcTime", em.getInfectionTime(detSrc));
-		res.addRow(budget, breadth, window, "srcDist", g.sp().getLowMemoryDistance(src, detSrc));
+	protected void postTracing(List<Row> rows, int budget, int breadth, int window, Coalition detected) {
+		int detSrc = Utils.argmin(detected.stream(), em::getInfectionTimeInt);
+		addRow(rows, budget, breadth, window, "everDetected", detected.size());
+		addRow(rows, budget, breadth, window, "nowDetected", detected.inplaceIntersect(em.getNowInfected()).count());
+		addRow(rows, budget, breadth, window, "srcTime", em.getInfectionTime(detSrc));
+		addRow(rows, budget, breadth, window, "srcDist", g.sp().getLowMemoryDistance(src, detSrc));
+	}
+	
+	protected interface TracingSummary {
+		void addRows(List<Row> rows, int budget, int breadth, int window, Coalition detected);
 	}
 }
@@ -1,11 +1,13 @@
 package anansi.experiment.ctracing;
 
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
 
 import anansi.core.Coalition;
+import anansi.core.DenseCoalition;
 import anansi.experiment.ExperimentResult;
 import anansi.temporal.TemporalGraph;
 import anansi.temporal.epidemic.TemporalSEIRHDCovidModel;
@@ -50,17 +52,16 @@ public class FollowupExPostContactTracingExperiment extends ExPostContactTracing
 		for (int pcrPerc = 0; pcrPerc <= 100; pcrPerc += 10) {
 			int pcrBudget = pcrPerc * budgets.get(0) / 100;
 			int tracingBudget = budgets.get(0) - pcrBudget;
-			TemporalSEIRHDCovidModel tem = new TemporalSEIRHDCovidModel((TemporalSEIRHDCovidModel)em);
+			TemporalSEIRHDCovidModel tem = ((TemporalSEIRHDCovidModel)em).fork();
 			Map<Integer, Integer> lastTest = new HashMap<>();
-			Coalition detected = new Coalition(initDetected);
-			PriorityQueue<Integer> traceQ = new PriorityQueue<>(
-					(i,j) -> tem.getInfectionTime(i).compareTo(tem.getInfectionTime(j)));
+			Coalition detected = new DenseCoalition(g.size(), initDetected);
+			PriorityQueue<Integer> traceQ = new PriorityQueue<>(Comparator.comparingInt(tem::getInfectionTimeInt));
 			for (int t = preTracingTime + 1; t <= g.getT(); ++t) {
 				tem.continueDiffusion(t);
 				int ft = t;
 				Coalition potentialTest = g.nodesStream().boxed()
 						.filter(i -> ft - lastTest.getOrDefault(i, 0) > PCR_TIMEOUT && !detected.contains(i))
-						.collect(Coalition.getCollector());
+						.collect(DenseCoalition.getCollector(g.size()));
 				potentialTest.getRandom(pcrBudget).forEach(i -> testNode(i, ft, tem, detected, traceQ, lastTest));
 				int remainingTracingBudget = tracingBudget;
 				while (remainingTracingBudget > 0 && !traceQ.isEmpty()) {
@@ -74,10 +75,10 @@ public class FollowupExPostContactTracingExperiment extends ExPostContactTracing
 				}
 				potentialTest = g.nodesStream().boxed()
 						.filter(i -> ft - lastTest.getOrDefault(i, 0) > PCR_TIMEOUT && !detected.contains(i))
-						.collect(Coalition.getCollector());
+						.collect(DenseCoalition.getCollector(g.size()));
 				potentialTest.getRandom(tracingBudget).forEach(i -> testNode(i, ft, tem, detected, traceQ, lastTest));
 			} 
-			int detSrc = Utils.argmin(detected, i -> tem.getInfectionTime(i));
+			int detSrc = Utils.argmin(detected.stream(), tem::getInfectionTimeInt);
 			res.addRow(pcrPerc, "detected", detected.size(), false);
 			res.addRow(pcrPerc, "nowInfected", tem.getNowInfected().size(), false);
 			res.addRow(pcrPerc, "everInfected", tem.getEverInfected().size(), false);
@@ -85,10 +86,9 @@ public class FollowupExPostContactTracingExperiment extends ExPostContactTracing
 			res.addRow(pcrPerc, "srcDist", g.sp().getLowMemoryDistance(src, detSrc), false);
 			
 			// Baseline - all tracing at the end
-			TemporalSEIRHDCovidModel btem = new TemporalSEIRHDCovidModel((TemporalSEIRHDCovidModel)em);
+			TemporalSEIRHDCovidModel btem = ((TemporalSEIRHDCovidModel)em).fork();
 			detected.clear().add(initDetected);
-			PriorityQueue<Integer> bTraceQ = new PriorityQueue<>(
-					(i,j) -> btem.getInfectionTime(i).compareTo(btem.getInfectionTime(j)));
+			PriorityQueue<Integer> bTraceQ = new PriorityQueue<>(Comparator.comparingInt(btem::getInfectionTimeInt));
 			btem.continueDiffusion(g.getT());
 			pcrBudget *= (g.getT() - preTracingTime);
 			tracingBudget *= (g.getT() - preTracingTime);
@@ -103,7 +103,7 @@ public class FollowupExPostContactTracingExperiment extends ExPostContactTracing
 					--remainingTracingBudget;
 				}
 			} 
-			detSrc = Utils.argmin(detected, i -> btem.getInfectionTime(i));
+			detSrc = Utils.argmin(detected.stream(), btem::getInfectionTimeInt);
 			res.addRow(pcrPerc, "detected", detected.size(), true);
 			res.addRow(pcrPerc, "nowInfected", btem.getNowInfected().size(), true);
 			res.addRow(pcrPerc, "everInfected", btem.getEverInfected().size(), true);
@@ -115,7 +115,7 @@ public class FollowupExPostContactTracingExperiment extends ExPostContactTracing
 	protected void testNode(int i, int t, TemporalSEIRHDCovidModel tem, Coalition detected, PriorityQueue<Integer> traceQ,
 			Map<Integer, Integer> lastTest) {
 		lastTest.put(i, t);
-		if (tem.getNowInfected().contains(i)) {
+		if (tem.isNowInfected(i)) {
 			tem.vaccinate(i);
 			detected.add(i);
 			traceQ.add(i);
@@ -46,20 +46,16 @@ public class ParamsExPostContactTracingExperiment extends ExPostContactTracingEx
 				res.addRow(0, 0, 0, "nowDetected", em.getNowInfected().size(), presymptomatic, transmission);
 				res.addRow(0, 0, 0, "avgInfected", pauseAvgInfected, presymptomatic, transmission);
 				
-				for (int budget : budgets)
-					for (int breadth : breadths)
-						for (int window : windowOffsets){
-							Coalition detected = new Coalition(initDetected);
-							runTracing(em, detected, budget, breadth, window);
-							int detSrc = Utils.argmin(detected, i -> em.getInfectionTime(i));
-							res.addRow(budget, breadth, window, "everDetected", detected.size(), presymptomatic, transmission);
-							res.addRow(budget, breadth, window, "nowDetected",
-									detected.inplaceIntersect(em.getNowInfected()).count(), presymptomatic, transmission);
-							res.addRow(budget, breadth, window, "srcTime", em.getInfectionTime(detSrc),
-									presymptomatic, transmission);
-							res.addRow(budget, breadth, window, "srcDist", g.sp().getLowMemoryDistance(src, detSrc),
-									presymptomatic, transmission);
-						}	
+				traceGrid(res, initDetected, (rows, budget, breadth, window, detected) -> {
+					int detSrc = Utils.argmin(detected.stream(), em::getInfectionTimeInt);
+					addRow(rows, budget, breadth, window, "everDetected", detected.size(), presymptomatic, transmission);
+					addRow(rows, budget, breadth, window, "nowDetected",
+							detected.inplaceIntersect(em.getNowInfected()).count(), presymptomatic, transmission);
+					addRow(rows, budget, breadth, window, "srcTime", em.getInfectionTime(detSrc),
+							presymptomatic, transmission);
+					addRow(rows, budget, breadth, window, "srcDist", g.sp().getLowMemoryDistance(src, detSrc),
+							presymptomatic, transmission);
+				});
 			}
 	}
 	
@@ -6,6 +6,7 @@ import java.util.stream.Stream;
 
 import anansi.experiment.ExperimentAggregator;
 import anansi.experiment.ExperimentResult;
+import anansi.experiment.ReplicateScheduler;
 import anansi.experiment.Row;
 import anansi.temporal.TemporalGraph;
 import anansi.temporal.epidemic.TemporalSEIRHDCovidModel;
@@ -24,11 +25,14 @@ public class RunBudgetExPostContactTracing extends RunExPostContactTracing {
 		int budgetFrom = args.length > 3 ? Integer.parseInt(args[3]) : 25;
 		int budgetTo = args.length > 4 ? Integer.parseInt(args[4]) : 200;
 		int budgetBy = args.length > 5 ? Integer.parseInt(args[5]) : 25;
+		String threads = args.length > 6 ? args[6] : "1";
 		
-		for (int iter = 0; iter < times; ++iter) {
-			r.runSingle(r.ter(n, avgDegr, TIMESTEPS), budgetFrom, budgetTo, budgetBy);
-			r.runSingle(r.tws(n, avgDegr, .25, TIMESTEPS), budgetFrom, budgetTo, budgetBy);
-			r.runSingle(r.tba(n, avgDegr, TIMESTEPS), budgetFrom, budgetTo, budgetBy);
+		try (ReplicateScheduler s = r.scheduler(threads)) {
+			for (int iter = 0; iter < times; ++iter) {
+				s.submit(() -> r.runSingle(r.ter(n, avgDegr, TIMESTEPS), budgetFrom, budgetTo, budgetBy));
+				s.submit(() -> r.runSingle(r.tws(n, avgDegr, .25, TIMESTEPS), budgetFrom, budgetTo, budgetBy));
+				s.submit(() -> r.runSingle(r.tba(n, avgDegr, TIMESTEPS), budgetFrom, budgetTo, budgetBy));
+			}
 		}
 		
 		r.aggregateAll();
@@ -12,6 +12,7 @@ import org.apache.commons.math3.stat.regression.SimpleRegression;
 import anansi.experiment.ExperimentAggregator;
 import anansi.experiment.ExperimentResult;
 import anansi.experiment.ExperimentRunner;
+import anansi.experiment.ReplicateScheduler;
 import anansi.experiment.Row;
 import anansi.temporal.TemporalGraph;
 import anansi.temporal.TemporalGraphGenerator;
@@ -32,11 +33,14 @@ public class RunExPostContactTracing extends ExperimentRunner {
 		int n = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
 		int avgDegr = args.length > 2 ? Integer.parseInt(args[2]) : 50;
 		int budget = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+		String threads = args.length > 4 ? args[4] : "1";
 		
-		for (int iter = 0; iter < times; ++iter) {
-			r.runSingle(r.ter(n, avgDegr, TIMESTEPS), budget);
-			r.runSingle(r.tws(n, avgDegr, .25, TIMESTEPS), budget);
-			r.runSingle(r.tba(n, avgDegr, TIMESTEPS), budget);
+		try (ReplicateScheduler s = r.scheduler(threads)) {
+			for (int iter = 0; iter < times; ++iter) {
+				s.submit(() -> r.runSingle(r.ter(n, avgDegr, TIMESTEPS), budget));
+				s.submit(() -> r.runSingle(r.tws(n, avgDegr, .25, TIMESTEPS), budget));
+				s.submit(() -> r.runSingle(r.tba(n, avgDegr, TIMESTEPS), budget));
+			}
 		}
 		
 		r.aggregateAll();
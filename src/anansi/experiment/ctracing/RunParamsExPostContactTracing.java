@@ -8,6 +8,7 @@ import java.util.stream.Stream;
 
 import anansi.experiment.ExperimentAggregator;
 import anansi.experiment.ExperimentResult;
+import anansi.experiment.ReplicateScheduler;
 import anansi.experiment.Row;
 import anansi.temporal.TemporalGraph;
 import anansi.temporal.epidemic.TemporalSEIRHDCovidModel;
@@ -24,11 +25,14 @@ public class RunParamsExPostContactTracing extends RunExPostContactTracing {
 		int n = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
 		int avgDegr = args.length > 2 ? Integer.parseInt(args[2]) : 50;
 		int budget = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+		String threads = args.length > 4 ? args[4] : "1";
 		
-		for (int iter = 0; iter < times; ++iter){
-			r.runSingle(r.ter(n, avgDegr, TIMESTEPS), budget);
-			r.runSingle(r.tws(n, avgDegr, .25, TIMESTEPS), budget);
-			r.runSingle(r.tba(n, avgDegr, TIMESTEPS), budget);
+		try (ReplicateScheduler s = r.scheduler(threads)) {
+			for (int iter = 0; iter < times; ++iter){
+				s.submit(() -> r.runSingle(r.ter(n, avgDegr, TIMESTEPS), budget));
+				s.submit(() -> r.runSingle(r.tws(n, avgDegr, .25, TIMESTEPS), budget));
+				s.submit(() -> r.runSingle(r.tba(n, avgDegr, TIMESTEPS), budget));
+			}
 		}
 		
 		r.aggregateAll();
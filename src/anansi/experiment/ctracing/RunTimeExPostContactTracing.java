@@ -6,6 +6,7 @@ import java.util.stream.Stream;
 
 import anansi.experiment.ExperimentAggregator;
 import anansi.experiment.ExperimentResult;
+import anansi.experiment.ReplicateScheduler;
 import anansi.experiment.Row;
 import anansi.temporal.TemporalGraph;
 import anansi.temporal.epidemic.TemporalSEIRHDCovidModel;
@@ -25,13 +26,17 @@ public class RunTimeExPostContactTracing extends RunExPostContactTracing {
 		int timeTo = args.length > 4 ? Integer.parseInt(args[4]) : 56;
 		int timeBy = args.length > 5 ? Integer.parseInt(args[5]) : 7;
 		int budget = args.length > 6 ? Integer.parseInt(args[6]) : 100;
+		String threads = args.length > 7 ? args[7] : "1";
 		
-		for (int iter = 0; iter < times; ++iter)
-			for (int timesteps = timeFrom; timesteps <= timeTo; timesteps += timeBy){
-				r.runSingle(r.ter(n, avgDegr, timesteps), budget);
-				r.runSingle(r.tws(n, avgDegr, .25, timesteps), budget);
-				r.runSingle(r.tba(n, avgDegr, timesteps), budget);
-			}
+		try (ReplicateScheduler s = r.scheduler(threads)) {
+			for (int iter = 0; iter < times; ++iter)
+				for (int timesteps = timeFrom; timesteps <= timeTo; timesteps += timeBy){
+					int t = timesteps;
+					s.submit(() -> r.runSingle(r.ter(n, avgDegr, t), budget));
+					s.submit(() -> r.runSingle(r.tws(n, avgDegr, .25, t), budget));
+					s.submit(() -> r.runSingle(r.tba(n, avgDegr, t), budget));
+				}
+		}
 		
 		r.aggregateAll();
 		r.printCharts();
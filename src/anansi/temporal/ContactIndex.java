@@ -0,0 +1,189 @@
+package anansi.temporal;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import anansi.core.Edge;
+import anansi.core.Graph;
+import anansi.core.GraphChangeListener;
+
+/**
+ * Index of contacts of a temporal graph by time moment. For every time moment t it keeps the contacts
+ * active at t in the compressed sparse row format, so that iterating neighbours of a node at a given time
+ * does not touch edges that are inactive at that time. The index is built lazily and dropped on every
+ * change of the graph.
+ *
+ * @author Marcin Waniek
+ */
+public class ContactIndex implements GraphChangeListener {
+
+	private TemporalGraph g;
+	private volatile Layers layers;
+
+	private ContactIndex(TemporalGraph g) {
+		this.g = g;
+		this.layers = null;
+	}
+
+	public static ContactIndex construct(TemporalGraph g){
+		ContactIndex res = new ContactIndex(g);
+		g.subscribe(res);
+		return res;
+	}
+
+	public IntStream getTSuccsStream(int i, int t) {
+		Layers l = getLayers();
+		if (t < 0 || t >= l.t)
+			return IntStream.empty();
+		return Arrays.stream(l.succTargets[t], l.succOffsets[t][i], l.succOffsets[t][i + 1]);
+	}
+
+	public IntStream getTPredsStream(int i, int t) {
+		Layers l = getLayers();
+		if (t < 0 || t >= l.t)
+			return IntStream.empty();
+		return Arrays.stream(l.predTargets[t], l.predOffsets[t][i], l.predOffsets[t][i + 1]);
+	}
+
+	public int getTOutDegree(int i, int t) {
+		Layers l = getLayers();
+		return t < 0 || t >= l.t ? 0 : l.succOffsets[t][i + 1] - l.succOffsets[t][i];
+	}
+
+	public int getTInDegree(int i, int t) {
+		Layers l = getLayers();
+		return t < 0 || t >= l.t ? 0 : l.predOffsets[t][i + 1] - l.predOffsets[t][i];
+	}
+
+	/**
+	 * Number of nodes that have at least one outgoing contact at time t.
+	 */
+	public int getActiveNodesCount(int t) {
+		return getActiveNodes(t).length;
+	}
+	
+	// Raw arrays for performance-critical loops (they must not be modified)
+	
+	/**
+	 * Nodes that have at least one outgoing contact at time t, in increasing order.
+	 */
+	public int[] getActiveNodes(int t) {
+		Layers l = getLayers();
+		return t < 0 || t >= l.t ? new int[0] : l.active[t];
+	}
+	
+	/**
+	 * Successors of node i at time t are getSuccTargets(t)[getSuccOffsets(t)[i]..getSuccOffsets(t)[i+1]).
+	 */
+	public int[] getSuccOffsets(int t) {
+		return getLayers().succOffsets[t];
+	}
+	
+	public int[] getSuccTargets(int t) {
+		return getLayers().succTargets[t];
+	}
+	
+	public int[] getPredOffsets(int t) {
+		return getLayers().predOffsets[t];
+	}
+	
+	public int[] getPredTargets(int t) {
+		return getLayers().predTargets[t];
+	}
+
+	private Layers getLayers() {
+		Layers res = layers;
+		if (res == null)
+			synchronized (this) {
+				if (layers == null)
+					layers = new Layers(g);
+				res = layers;
+			}
+		return res;
+	}
+
+	@Override
+	public void notifyAdd(Graph g, Edge e) {
+		reactNotify();
+	}
+
+	@Override
+	public void notifyRemove(Graph g, Edge e) {
+		reactNotify();
+	}
+
+	@Override
+	public void notifyOther(Graph g, Edge e) {
+		reactNotify();
+	}
+
+	@Override
+	public void notifyReset(Graph g) {
+		reactNotify();
+	}
+
+	protected void reactNotify(){
+		layers = null;
+	}
+
+	private static class Layers {
+
+		private int t;
+		private int[][] succOffsets;
+		private int[][] succTargets;
+		private int[][] predOffsets;
+		private int[][] predTargets;
+		private int[][] active;
+
+		public Layers(TemporalGraph g) {
+			this.t = g.getT();
+			int n = g.size();
+			this.succOffsets = new int[t][n + 1];
+			this.predOffsets = g.isDirected() ? new int[t][n + 1] : succOffsets;
+			for (Edge e : g.edges()) {
+				int i = e.i();
+				int j = e.j();
+				if (g.w(i, j) != null)
+					g.w(i, j).stream(0, t - 1).forEach(s -> {
+						++succOffsets[s][i + 1];
+						++predOffsets[s][j + 1];
+					});
+			}
+			this.succTargets = new int[t][];
+			for (int s = 0; s < t; ++s) {
+				for (int i = 0; i < n; ++i)
+					succOffsets[s][i + 1] += succOffsets[s][i];
+				succTargets[s] = new int[succOffsets[s][n]];
+			}
+			if (g.isDirected()) {
+				this.predTargets = new int[t][];
+				for (int s = 0; s < t; ++s) {
+					for (int i = 0; i < n; ++i)
+						predOffsets[s][i + 1] += predOffsets[s][i];
+					predTargets[s] = new int[predOffsets[s][n]];
+				}
+			} else
+				this.predTargets = succTargets;
+			int[][] succFill = new int[t][];
+			int[][] predFill = new int[t][];
+			for (int s = 0; s < t; ++s) {
+				succFill[s] = Arrays.copyOf(succOffsets[s], n);
+				predFill[s] = g.isDirected() ? Arrays.copyOf(predOffsets[s], n) : succFill[s];
+			}
+			for (Edge e : g.edges()) {
+				int i = e.i();
+				int j = e.j();
+				if (g.w(i, j) != null)
+					g.w(i, j).stream(0, t - 1).forEach(s -> {
+						succTargets[s][succFill[s][i]++] = j;
+						predTargets[s][predFill[s][j]++] = i;
+					});
+			}
+			this.active = new int[t][];
+			for (int s = 0; s < t; ++s) {
+				int[] offsets = succOffsets[s];
+				active[s] = IntStream.range(0, n).filter(i -> offsets[i + 1] > offsets[i]).toArray();
+			}
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package anansi.temporal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+import anansi.utils.LongIntMap;
+
+/**
+ * Importing temporal graphs from lists of contacts, one contact per line (e.g., "i j t" or, as in SocioPatterns
+ * datasets, "t i j"), with fields separated by whitespace, commas or semicolons. Lines that do not start with
+ * numeric fields (headers, comments) are skipped, fractional parts of times are truncated and further columns are
+ * ignored. Files compressed with gzip are recognised by their content.
+ * The file is streamed twice in chunks, without creating a String per line: the first pass assigns consecutive
+ * node numbers to identifiers in the order of their first appearance and finds the earliest time, and the second
+ * pass adds contacts to the graph, with times divided into steps of the given length counted from the earliest time.
+ *
+ * @author Marcin Waniek
+ */
+public class ContactListReader {
+
+	private static final int CHUNK = 1 << 20;
+
+	private int timeColumn;
+	private long step;
+	private boolean directed;
+	private LongIntMap ids;
+	private long minTime;
+	private long records;
+
+	public ContactListReader(int timeColumn, long step, boolean directed) {
+		if (timeColumn < 0 || timeColumn > 2)
+			throw new IllegalArgumentException("Time has to be in one of the first three columns.");
+		if (step <= 0)
+			throw new IllegalArgumentException("Length of time steps has to be positive.");
+		this.timeColumn = timeColumn;
+		this.step = step;
+		this.directed = directed;
+		this.ids = null;
+		this.minTime = Long.MAX_VALUE;
+		this.records = 0;
+	}
+
+	/**
+	 * Reader of lines "i j t" with times in steps of length 1.
+	 */
+	public ContactListReader() {
+		this(2, 1, false);
+	}
+
+	public static TemporalGraph read(String filePath) {
+		return new ContactListReader().read(filePath, Paths.get(filePath).getFileName().toString());
+	}
+
+	/**
+	 * Reads the graph from the file, returns null if reading failed.
+	 */
+	public TemporalGraph read(String filePath, String name) {
+		Path path = Paths.get(filePath);
+		try {
+			ids = new LongIntMap();
+			minTime = Long.MAX_VALUE;
+			records = 0;
+			parse(path, (a, b, t) -> {
+				if (a == b)
+					return;
+				ids.add(a);
+				ids.add(b);
+				minTime = Math.min(minTime, t);
+				++records;
+			});
+			TemporalGraphBuilder res = new TemporalGraphBuilder(name, ids.size(), directed);
+			parse(path, (a, b, t) -> res.addTEdge(ids.get(a), ids.get(b), Math.toIntExact((t - minTime) / step)));
+			return res.build();
+		} catch (IOException e) {
+			System.err.println("Error during reading from file.");
+			e.printStackTrace();
+		} catch (ArithmeticException e) {
+			System.err.println("Error during reading from file: too many time steps.");
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * Original identifier of node i of the last graph read.
+	 */
+	public long getOriginalId(int i) {
+		return ids.getKey(i);
+	}
+
+	/**
+	 * Time (in units of the file) of the step 0 of the last graph read.
+	 */
+	public long getMinTime() {
+		return minTime;
+	}
+
+	/**
+	 * Number of contacts in the last file read (including repeated ones, excluding contacts of a node with itself).
+	 */
+	public long getRecordsCount() {
+		return records;
+	}
+
+	private static ReadableByteChannel open(Path path) throws IOException {
+		boolean gzip = false;
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(2);
+			while (magic.hasRemaining() && ch.read(magic) >= 0);
+			gzip = magic.position() == 2 && (magic.get(0) & 0xff) == 0x1f && (magic.get(1) & 0xff) == 0x8b;
+		}
+		if (!gzip)
+			return FileChannel.open(path, StandardOpenOption.READ);
+		InputStream in = Files.newInputStream(path);
+		try {
+			return Channels.newChannel(new GZIPInputStream(in, CHUNK));
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	private void parse(Path path, ContactConsumer consumer) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(CHUNK);
+		long[] fields = new long[3];
+		int field = 0;
+		long value = 0;
+		boolean negative = false;
+		boolean digits = false;
+		boolean fraction = false;
+		boolean skip = false;
+		try (ReadableByteChannel ch = open(path)) {
+			boolean eof = false;
+			while (!eof) {
+				buf.clear();
+				eof = ch.read(buf) < 0;
+				buf.flip();
+				int len = buf.limit();
+				byte[] a = buf.array();
+				// the end of the file ends the last line
+				for (int k = 0; k < len || (eof && k == len); ++k) {
+					int c = k < len ? a[k] & 0xff : '\n';
+					if (c == '\n' || c == '\r') {
+						if (!skip && digits && field < 3)
+							fields[field++] = negative ? -value : value;
+						if (!skip && field >= 3)
+							consumer.accept(fields[timeColumn == 0 ? 1 : 0], fields[timeColumn == 2 ? 1 : 2],
+									fields[timeColumn]);
+						field = 0;
+						value = 0;
+						negative = digits = fraction = skip = false;
+					} else if (skip || field >= 3)
+						continue;
+					else if (c == ' ' || c == '\t' || c == ',' || c == ';') {
+						if (digits)
+							fields[field++] = negative ? -value : value;
+						value = 0;
+						negative = digits = fraction = false;
+					} else if (c >= '0' && c <= '9') {
+						if (!fraction) {
+							value = 10 * value + (c - '0');
+							digits = true;
+						}
+					} else if (c == '-' && !digits && !negative)
+						negative = true;
+					else if (c == '.' && digits && field == timeColumn)
+						fraction = true;
+					else
+						skip = true;
+				}
+			}
+		}
+	}
+
+	private interface ContactConsumer {
+		void accept(long a, long b, long t);
+	}
+}
@@ -0,0 +1,204 @@
+package anansi.temporal;
+
+import java.util.Arrays;
+
+import anansi.core.Edge;
+import anansi.core.Graph;
+import anansi.core.GraphChangeListener;
+import anansi.utils.LRUCache;
+
+/**
+ * Computing latency in a temporal graph with sweeps over contacts sorted by time, without materializing
+ * the information about all pairs of nodes. A journey uses contacts at strictly increasing time moments.
+ * Latency from i to j at time t is the difference between the earliest arrival at j of a journey leaving
+ * i at time t or later and t. Average latency is defined as in {@link Latency}.
+ * Single-source and single-target results are kept in bounded caches, replaced with empty ones whenever the graph
+ * changes, so results computed for an earlier version of the graph are never stored in the current caches.
+ *
+ * @author Marcin Waniek
+ */
+public class EarliestArrival implements GraphChangeListener {
+
+	public static final int NO_ARRIVAL = Integer.MAX_VALUE;
+
+	private TemporalGraph g;
+	private volatile LRUCache<Long, int[]> arrivals;
+	private volatile LRUCache<Integer, double[]> averageLatencies;
+
+	private EarliestArrival(TemporalGraph g) {
+		this.g = g;
+		long capacity = Runtime.getRuntime().maxMemory() / 32;
+		this.arrivals = new LRUCache<>(capacity, a -> 4L * a.length);
+		this.averageLatencies = new LRUCache<>(capacity, a -> 8L * a.length);
+	}
+
+	public static EarliestArrival construct(TemporalGraph g){
+		EarliestArrival res = new EarliestArrival(g);
+		g.subscribe(res);
+		return res;
+	}
+
+	/**
+	 * Sets the memory budget (in bytes) of each of the caches; 0 disables caching.
+	 */
+	public void setCacheCapacity(long bytes) {
+		arrivals.setCapacity(bytes);
+		averageLatencies.setCapacity(bytes);
+		if (bytes <= 0) {
+			arrivals.clear();
+			averageLatencies.clear();
+		}
+	}
+
+	public int getLatency(int i, int j, int t) {
+		int arrival = arrivals.getCapacity() > 0 ? getEarliestArrivals(i, t)[j] : findEarliestArrival(i, j, t);
+		return arrival == NO_ARRIVAL ? Integer.MAX_VALUE : arrival - t;
+	}
+
+	/**
+	 * Earliest arrival times at all nodes of journeys leaving i at time t or later (NO_ARRIVAL if there is none).
+	 */
+	public int[] getEarliestArrivals(int i, int t) {
+		LRUCache<Long, int[]> cache = arrivals;
+		if (cache.getCapacity() <= 0)
+			return findEarliestArrivals(i, -1, t);
+		long key = (long)i * (g.getT() + 2) + Math.max(-1, Math.min(t, g.getT())) + 1;
+		return cache.get(key, k -> findEarliestArrivals(i, -1, t));
+	}
+
+	public double getAverageLatency(int i, int j) {
+		return getAverageLatenciesTo(j)[i];
+	}
+
+	/**
+	 * Average latencies from all nodes to j.
+	 */
+	public double[] getAverageLatenciesTo(int j) {
+		LRUCache<Integer, double[]> cache = averageLatencies;
+		if (cache.getCapacity() <= 0)
+			return findAverageLatenciesTo(j);
+		return cache.get(j, k -> findAverageLatenciesTo(j));
+	}
+
+	private int findEarliestArrival(int i, int j, int t) {
+		return i == j ? NO_ARRIVAL : findEarliestArrivals(i, j, t)[j];
+	}
+
+	/**
+	 * Forward sweep from i; stops once the target (if non-negative) is reached.
+	 */
+	private int[] findEarliestArrivals(int i, int target, int t) {
+		ContactIndex contacts = g.contacts();
+		int[] arrival = new int[g.size()];
+		Arrays.fill(arrival, NO_ARRIVAL);
+		int[] reached = new int[g.size()];
+		int reachedCount = 0;
+		reached[reachedCount++] = i;
+		for (int s = Math.max(t, 0); s < g.getT(); ++s) {
+			int[] offsets = contacts.getSuccOffsets(s);
+			int[] targets = contacts.getSuccTargets(s);
+			int ready = reachedCount;
+			for (int r = 0; r < ready; ++r) {
+				int u = reached[r];
+				for (int k = offsets[u]; k < offsets[u + 1]; ++k) {
+					int v = targets[k];
+					if (v != i && arrival[v] == NO_ARRIVAL) {
+						arrival[v] = s;
+						reached[reachedCount++] = v;
+					}
+				}
+			}
+			if (target >= 0 && arrival[target] != NO_ARRIVAL)
+				break;
+		}
+		return arrival;
+	}
+
+	/**
+	 * Backward sweep computing, for every node, the profile of earliest arrivals at j as a function of the departure
+	 * time, and aggregating it into the average latency on the fly.
+	 */
+	private double[] findAverageLatenciesTo(int j) {
+		ContactIndex contacts = g.contacts();
+		int n = g.size();
+		int last = g.getT() - 1;
+		int[] arrival = new int[n];
+		int[] earliestStart = new int[n];
+		int[] latestStart = new int[n];
+		int[] candidate = new int[n];
+		int[] touched = new int[n];
+		double[] res = new double[n];
+		Arrays.fill(arrival, NO_ARRIVAL);
+		Arrays.fill(earliestStart, -1);
+		Arrays.fill(candidate, NO_ARRIVAL);
+		for (int s = last; s >= 0; --s) {
+			int[] offsets = contacts.getSuccOffsets(s);
+			int[] targets = contacts.getSuccTargets(s);
+			int touchedCount = 0;
+			for (int u : contacts.getActiveNodes(s)) {
+				if (u == j)
+					continue;
+				int best = NO_ARRIVAL;
+				for (int k = offsets[u]; k < offsets[u + 1]; ++k) {
+					int v = targets[k];
+					best = Math.min(best, v == j ? s : arrival[v]);
+				}
+				if (best < arrival[u]) {
+					candidate[u] = best;
+					touched[touchedCount++] = u;
+				}
+			}
+			for (int k = 0; k < touchedCount; ++k) {
+				int u = touched[k];
+				if (earliestStart[u] < 0)
+					latestStart[u] = s;
+				else {
+					int gap = earliestStart[u] - s;
+					res[u] += gap * (gap / 2. + arrival[u] - earliestStart[u]);
+				}
+				earliestStart[u] = s;
+				arrival[u] = candidate[u];
+				candidate[u] = NO_ARRIVAL;
+			}
+		}
+		for (int u = 0; u < n; ++u)
+			if (u != j) {
+				if (earliestStart[u] < 0)
+					res[u] = Double.POSITIVE_INFINITY;
+				else {
+					res[u] += earliestStart[u] * (earliestStart[u] / 2. + arrival[u] - earliestStart[u]);
+					if (latestStart[u] < last) {
+						int gap = last - latestStart[u];
+						res[u] += gap * (gap / 2. + arrival[u]);
+					}
+					res[u] /= last;
+				}
+			}
+		return res;
+	}
+
+	@Override
+	public void notifyAdd(Graph g, Edge e) {
+		reactNotify();
+	}
+
+	@Override
+	public void notifyRemove(Graph g, Edge e) {
+		reactNotify();
+	}
+
+	@Override
+	public void notifyOther(Graph g, Edge e) {
+		reactNotify();
+	}
+
+	@Override
+	public void notifyReset(Graph g) {
+		reactNotify();
+	}
+
+	protected void reactNotify(){
+		arrivals = new LRUCache<>(arrivals.getCapacity(), a -> 4L * a.length);
+		averageLatencies = new LRUCache<>(averageLatencies.getCapacity(), a -> 8L * a.length);
+	}
+}
@@ -10,7 +10,7 @@ import anansi.core.Edge;
 import anansi.core.Graph;
 import anansi.core.LWGraph;
 import anansi.temporal.Latency.PathRec;
-import anansi.utils.Utils;
+import anansi.utils.RandomSource;
 
 /**
  * Representation of a temporal graph.
@@ -22,11 +22,15 @@ public class TemporalGraph extends LWGraph<Void, Timeline> {
 	private int maxTime;
 	private Stack<TemporalChange> history;
 	private Latency latency;
+	private volatile ContactIndex contacts;
+	private volatile EarliestArrival earliestArrival;
 	
 	public TemporalGraph(String name, int n, boolean directed){
 		super(name, n, directed);
 		this.maxTime = 0;
 		this.latency = null;
+		this.contacts = null;
+		this.earliestArrival = null;
 	}
 	
 	public TemporalGraph(String name, int n){
@@ -114,19 +118,33 @@ public class TemporalGraph extends LWGraph<Void, Timeline> {
 	@Override
 	public void forceConnectivity() {
 		forceConnectivity((c, rest) -> e(c.getAny().intValue(), rest.findAny().getAsInt()),
-				e -> addTEdge(e.i(), e.j(), Utils.RAND.nextInt(getT())));
+				e -> addTEdge(e.i(), e.j(), RandomSource.get().nextInt(getT())));
 	}
 	
 	public boolean containsTEdge(int i, int j, int t){
 		return containsEdge(i, j) && w(i, j).contains(t);
 	}
 	
+	/**
+	 * Index of contacts by time moment, built on first use and kept up to date with changes of the graph.
+	 */
+	public ContactIndex contacts() {
+		ContactIndex res = contacts;
+		if (res == null)
+			synchronized (this) {
+				if (contacts == null)
+					contacts = ContactIndex.construct(this);
+				res = contacts;
+			}
+		return res;
+	}
+	
 	public IntStream getTSuccsStream(int i, int t) {
-		return getSuccs(i).stream().filter(j -> w(i, j).contains(t));
+		return contacts().getTSuccsStream(i, t);
 	}
 	
 	public IntStream getTPredsStream(int i, int t) {
-		return getPreds(i).stream().filter(j -> w(j, i).contains(t));
+		return contacts().getTPredsStream(i, t);
 	}
 	
 	public IntStream getTNeighsStream(int i, int t) {
@@ -172,20 +190,30 @@ public class TemporalGraph extends LWGraph<Void, Timeline> {
 	
 	public Graph getGraphAtTime(int t) {
 		Graph res = new Graph(getName() + "[t=" + t + "]", size(), isDirected());
-		nodesStream().forEach(i -> getTSuccsStream(i, t).forEach(j -> res.addEdge(i, j)));
+		nodesStream().forEach(i -> getTSuccsStream(i, t).filter(j -> i < j || isDirected()).forEach(j -> res.addEdge(i, j)));
+		return res;
+	}
+	
+	/**
+	 * Engine computing latencies with time-ordered sweeps, built on first use.
+	 */
+	public EarliestArrival ea() {
+		EarliestArrival res = earliestArrival;
+		if (res == null)
+			synchronized (this) {
+				if (earliestArrival == null)
+					earliestArrival = EarliestArrival.construct(this);
+				res = earliestArrival;
+			}
 		return res;
 	}
 	
 	public double getAverageLatency(int i, int j) {
-		if (latency == null)
-			latency = Latency.construct(this);
-		return latency.getAverageLatency(i, j);
+		return ea().getAverageLatency(i, j);
 	}
 	
 	public int getLatency(int i, int j, int t) {
-		if (latency == null)
-			latency = Latency.construct(this);
-		return latency.getLatency(i, j, t);
+		return ea().getLatency(i, j, t);
 	}
 	
 	public List<PathRec> getShortestPathsRecords(int i, int j) {
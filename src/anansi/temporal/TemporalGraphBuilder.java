@@ -0,0 +1,56 @@
+package anansi.temporal;
+
+/**
+ * Constructing a temporal graph from edges with their timelines, or from single contacts.
+ * The graph is filled directly, without notifying listeners, recording history or creating Edge objects,
+ * and is not available to anyone else until it is built; timelines of repeated edges are merged.
+ * The builder should not be used after the graph is built.
+ *
+ * @author Marcin Waniek
+ */
+public class TemporalGraphBuilder {
+
+	private TemporalGraph res;
+
+	public TemporalGraphBuilder(String name, int n, boolean directed) {
+		this.res = new TemporalGraph(name, n, directed);
+	}
+
+	public TemporalGraphBuilder(String name, int n) {
+		this(name, n, false);
+	}
+
+	public int edgesCount() {
+		return res.edgesCount();
+	}
+
+	/**
+	 * Adds the edge with the given timeline (the builder takes ownership of it).
+	 */
+	public void addTEdge(int i, int j, Timeline tl) {
+		if (i == j || tl == null || tl.isEmpty())
+			return;
+		if (res.containsEdge(i, j))
+			for (int k = 0; k < tl.intervalsCount(); ++k)
+				res.performAddTEdge(i, j, tl.getBegin(k), tl.getEnd(k));
+		else
+			res.performAddEdge(i, j, tl);
+	}
+
+	public void addTEdge(int i, int j, int begin, int end) {
+		if (i == j)
+			return;
+		if (res.containsEdge(i, j))
+			res.performAddTEdge(i, j, begin, end);
+		else
+			res.performAddEdge(i, j, new Timeline(begin, end));
+	}
+
+	public void addTEdge(int i, int j, int t) {
+		addTEdge(i, j, t, t);
+	}
+
+	public TemporalGraph build() {
+		return res;
+	}
+}
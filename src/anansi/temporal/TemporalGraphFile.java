@@ -0,0 +1,82 @@
+package anansi.temporal;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+
+import anansi.core.CSRGraph;
+import anansi.core.GraphFile;
+import anansi.utils.FileReaderWriter;
+
+/**
+ * Binary format of temporal graphs: the adjacency in the format of {@link GraphFile}, followed by timelines of edges
+ * (of arcs i->j in the order of the adjacency, only with i < j for undirected graphs). Timelines are stored as offsets
+ * into the array of intervals, and the array of interval bounds (begin and end of every interval).
+ * The static structure of the graph can be mapped without copying with {@link GraphFile#read(String)}.
+ *
+ * @author Marcin Waniek
+ */
+public class TemporalGraphFile {
+
+	/**
+	 * Writes the temporal graph to the file.
+	 */
+	public static void write(TemporalGraph g, String filePath) {
+		FileReaderWriter.createIfDoesNotExist(filePath);
+		try (GraphFile.Writer w = new GraphFile.Writer(filePath)) {
+			CSRGraph csr = w.writeGraph(g, GraphFile.TEMPORAL);
+			int intervals = 0;
+			w.writeInt(intervals);
+			for (int i = 0; i < csr.size(); ++i)
+				for (int j : csr.getSuccs(i))
+					if (g.isDirected() || i < j) {
+						intervals += g.w(i, j) == null ? 0 : g.w(i, j).intervalsCount();
+						w.writeInt(intervals);
+					}
+			for (int i = 0; i < csr.size(); ++i)
+				for (int j : csr.getSuccs(i))
+					if ((g.isDirected() || i < j) && g.w(i, j) != null) {
+						Timeline tl = g.w(i, j);
+						for (int k = 0; k < tl.intervalsCount(); ++k) {
+							w.writeInt(tl.getBegin(k));
+							w.writeInt(tl.getEnd(k));
+						}
+					}
+		} catch (IOException e) {
+			System.err.println("Error during writing to file.");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Reads the temporal graph from the file.
+	 */
+	public static TemporalGraph read(String filePath) {
+		try (GraphFile.Reader r = new GraphFile.Reader(filePath)) {
+			CSRGraph csr = r.readGraph();
+			if ((r.getFlags() & GraphFile.TEMPORAL) == 0)
+				throw new IOException("Not a temporal graph file.");
+			int edges = csr.edgesCount();
+			IntBuffer offsets = r.mapInts(edges + 1);
+			IntBuffer bounds = r.mapInts(2 * offsets.get(edges));
+			TemporalGraphBuilder res = new TemporalGraphBuilder(csr.getName(), csr.size(), csr.isDirected());
+			int e = 0;
+			for (int i = 0; i < csr.size(); ++i)
+				for (int j : csr.getSuccs(i))
+					if (csr.isDirected() || i < j) {
+						Timeline tl = null;
+						for (int k = offsets.get(e); k < offsets.get(e + 1); ++k) {
+							if (tl == null)
+								tl = new Timeline();
+							tl.add(bounds.get(2 * k), bounds.get(2 * k + 1));
+						}
+						res.addTEdge(i, j, tl);
+						++e;
+					}
+			return res.build();
+		} catch (IOException e) {
+			System.err.println("Error during reading from file.");
+			e.printStackTrace();
+		}
+		return null;
+	}
+}
@@ -1,10 +1,12 @@
 package anansi.temporal;
 
+import java.util.random.RandomGenerator;
+
 import anansi.core.Edge;
 import anansi.core.Graph;
 import anansi.core.GraphGenerator;
-import anansi.utils.ProbabilityDistribution;
-import anansi.utils.Utils;
+import anansi.utils.AliasSampler;
+import anansi.utils.RandomSource;
 
 /**
  * Generating random temporal networks.
@@ -114,22 +116,33 @@ public class TemporalGraphGenerator {
  */
 	private static TemporalGraph generateContacts(String name, Graph g, int maxTime, double overlap,
 			int avgContactsPerEdge, int intervalMin, int intervalMax, double intervalCoeff){
-		TemporalGraph res = new TemporalGraph(name, g.size());
-		ProbabilityDistribution<Integer> pd = ProbabilityDistribution.constructInt(intervalMin, intervalMax + 1,
-				x -> Math.pow(x, -intervalCoeff));
-		long[] contacts = new long[avgContactsPerEdge * g.edgesCount()];
-		for (int i = 0; i < contacts.length; ++i)
-			contacts[i] = pd.draw() + (i == 0 ? 0 : contacts[i-1]);
-		double period = (double)(contacts[contacts.length - 1] + pd.draw()) / g.edgesCount();
-		int i = 0;
+		double[] weights = new double[intervalMax - intervalMin + 1];
+		for (int x = intervalMin; x <= intervalMax; ++x)
+			weights[x - intervalMin] = Math.pow(x, -intervalCoeff);
+		AliasSampler intervals = new AliasSampler(weights);
+		long contacts = (long)avgContactsPerEdge * g.edgesCount();
+		// the first pass only sums up intervals between contacts, the second one replays them with the same seed
+		long seed = RandomSource.get().nextLong();
+		RandomGenerator rand = RandomSource.create(seed);
+		long total = 0;
+		for (long k = 0; k <= contacts; ++k)
+			total += intervalMin + intervals.draw(rand);
+		double period = (double)total / g.edgesCount();
+		rand = RandomSource.create(seed);
+		TemporalGraphBuilder res = new TemporalGraphBuilder(name, g.size());
+		long k = 0;
+		long next = intervalMin + intervals.draw(rand);
 		double edgeLowerBound = 0.;
 		for (Edge e : g.edges()) {
-			double edgeBeginTime = Utils.RAND.nextDouble() * (1. - overlap) * maxTime;
-			while (i < contacts.length && contacts[i] < edgeLowerBound + period)
-				res.addTEdge(e.i(), e.j(), (int)(edgeBeginTime + overlap * maxTime
-						* ((contacts[i++] - edgeLowerBound) / period)));
+			double edgeBeginTime = RandomSource.get().nextDouble() * (1. - overlap) * maxTime;
+			Timeline tl = new Timeline();
+			for (; k < contacts && next < edgeLowerBound + period; ++k) {
+				tl.add((int)(edgeBeginTime + overlap * maxTime * ((next - edgeLowerBound) / period)));
+				next += intervalMin + intervals.draw(rand);
+			}
+			res.addTEdge(e.i(), e.j(), tl);
 			edgeLowerBound += period;
 		}
-		return res;
+		return res.build();
 	}
 }
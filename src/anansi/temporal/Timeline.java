@@ -1,8 +1,7 @@
 package anansi.temporal;
 
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -10,91 +9,240 @@ import anansi.core.Coalition;
 
 /**
  * Representation of a sequence of time intervals.
- * 
+ * Intervals are kept sorted, disjoint and non-adjacent (overlapping or touching intervals are merged).
+ *
  * @author Marcin Waniek
  */
 public class Timeline implements Iterable<Integer> {
 
-	private Set<Integer> contacts;
-	private int maxTime;
-	
+	private int[] starts;
+	private int[] ends;
+	private int count;
+	private int size;
+
 	public Timeline() {
-		this.contacts = new HashSet<>();
-		this.maxTime = Integer.MIN_VALUE;
+		this.starts = new int[1];
+		this.ends = new int[1];
+		this.count = 0;
+		this.size = 0;
 	}
-	
+
 	public Timeline(int t) {
 		this();
 		add(t);
 	}
-	
+
 	public Timeline(int begin, int end) {
 		this();
 		add(begin, end);
 	}
 
 	public int getMaxTime() {
-		return maxTime;
+		return count == 0 ? Integer.MIN_VALUE : ends[count - 1];
 	}
-	
+
 	public void add(int t) {
 		add(t, t);
 	}
-	
+
 	public void add(int begin, int end) {
 		assert(begin <= end);
-		for (int t = begin; t <= end; ++t)
-			contacts.add(t);
-		maxTime = Math.max(maxTime, end);
+		if (count == 0 || begin > ends[count - 1] + 1) {
+			replace(count, count - 1, begin, end);
+			size += end - begin + 1;
+		} else if (begin >= starts[count - 1]) {
+			if (end > ends[count - 1]) {
+				size += end - ends[count - 1];
+				ends[count - 1] = end;
+			}
+		} else {
+			int lo = firstEndingAtLeast(begin - 1);
+			int hi = lastStartingAtMost(end + 1);
+			int newBegin = begin;
+			int newEnd = end;
+			if (lo <= hi) {
+				newBegin = Math.min(begin, starts[lo]);
+				newEnd = Math.max(end, ends[hi]);
+				size -= length(lo, hi);
+			}
+			replace(lo, hi, newBegin, newEnd);
+			size += newEnd - newBegin + 1;
+		}
 	}
-	
+
 	public void remove(int t) {
 		remove(t, t);
 	}
-	
+
 	public void remove(int begin, int end) {
 		assert(begin <= end);
-		for (int t = begin; t <= end; ++t)
-			contacts.remove(t);
-		if (begin <= maxTime && maxTime <= end)
-			maxTime = contacts.isEmpty() ? Integer.MIN_VALUE : contacts.stream().mapToInt(t -> t).max().getAsInt();
+		int lo = firstEndingAtLeast(begin);
+		int hi = lastStartingAtMost(end);
+		if (lo > hi)
+			return;
+		int leftBegin = starts[lo];
+		int rightEnd = ends[hi];
+		size -= length(lo, hi);
+		if (leftBegin < begin && rightEnd > end)
+			replace(lo, hi, leftBegin, begin - 1, end + 1, rightEnd);
+		else if (leftBegin < begin)
+			replace(lo, hi, leftBegin, begin - 1);
+		else if (rightEnd > end)
+			replace(lo, hi, end + 1, rightEnd);
+		else
+			replace(lo, hi);
+		if (leftBegin < begin)
+			size += begin - leftBegin;
+		if (rightEnd > end)
+			size += rightEnd - end;
 	}
-	
+
 	public boolean contains(int t) {
-		return contacts.contains(t);
+		int k = lastStartingAtMost(t);
+		return k >= 0 && ends[k] >= t;
+	}
+
+	/**
+	 * Checks whether there is any contact in the interval [begin,end].
+	 */
+	public boolean containsAny(int begin, int end) {
+		if (begin > end)
+			return false;
+		int k = firstEndingAtLeast(begin);
+		return k < count && starts[k] <= end;
 	}
-	
+
 	public Integer first() {
-		return contacts.isEmpty() ? null : contacts.stream().mapToInt(t -> t).min().getAsInt();
+		return count == 0 ? null : starts[0];
 	}
 
 	public Integer last() {
-		return contacts.isEmpty() ? null : contacts.stream().mapToInt(t -> t).max().getAsInt();
+		return count == 0 ? null : ends[count - 1];
 	}
-	
+
 	public int size() {
-		return contacts.size();
+		return size;
+	}
+
+	/**
+	 * Number of contacts in the interval [begin,end].
+	 */
+	public int size(int begin, int end) {
+		int res = 0;
+		for (int k = firstEndingAtLeast(begin); k < count && starts[k] <= end; ++k)
+			res += Math.min(end, ends[k]) - Math.max(begin, starts[k]) + 1;
+		return res;
+	}
+
+	public int intervalsCount() {
+		return count;
+	}
+
+	/**
+	 * Beginning of the k-th interval.
+	 */
+	public int getBegin(int k) {
+		return starts[k];
 	}
-	
+
+	/**
+	 * End of the k-th interval.
+	 */
+	public int getEnd(int k) {
+		return ends[k];
+	}
+
 	public boolean isEmpty() {
-		return contacts.isEmpty();
+		return count == 0;
 	}
-	
+
+	/**
+	 * Stream of contacts in increasing order.
+	 */
 	public IntStream stream(){
-		return contacts.stream().mapToInt(t -> t);
+		return IntStream.range(0, count).flatMap(k -> IntStream.rangeClosed(starts[k], ends[k]));
 	}
-	
+
+	/**
+	 * Stream of contacts in the interval [begin,end] in increasing order.
+	 */
+	public IntStream stream(int begin, int end){
+		if (begin > end)
+			return IntStream.empty();
+		int lo = firstEndingAtLeast(begin);
+		return IntStream.range(lo, count).takeWhile(k -> starts[k] <= end)
+				.flatMap(k -> IntStream.rangeClosed(Math.max(begin, starts[k]), Math.min(end, ends[k])));
+	}
+
 	public Coalition asCoalition() {
-		return new Coalition(contacts);
+		return stream().boxed().collect(Coalition.getCollector());
 	}
-	
+
 	@Override
 	public Iterator<Integer> iterator() {
-		return contacts.iterator();
+		return stream().iterator();
 	}
-	
+
+	/**
+	 * Index of the first interval that ends at or after t (count if there is none).
+	 */
+	private int firstEndingAtLeast(int t) {
+		int lo = 0;
+		int hi = count;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (ends[mid] < t)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Index of the last interval that starts at or before t (-1 if there is none).
+	 */
+	private int lastStartingAtMost(int t) {
+		int lo = 0;
+		int hi = count;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (starts[mid] <= t)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo - 1;
+	}
+
+	private int length(int lo, int hi) {
+		int res = 0;
+		for (int k = lo; k <= hi; ++k)
+			res += ends[k] - starts[k] + 1;
+		return res;
+	}
+
+	/**
+	 * Replaces intervals lo..hi (possibly none, if hi < lo) with the given intervals.
+	 */
+	private void replace(int lo, int hi, int... bounds) {
+		int added = bounds.length / 2;
+		int newCount = count - (hi - lo + 1) + added;
+		if (newCount > starts.length) {
+			starts = Arrays.copyOf(starts, Math.max(newCount, 2 * starts.length));
+			ends = Arrays.copyOf(ends, starts.length);
+		}
+		System.arraycopy(starts, hi + 1, starts, lo + added, count - hi - 1);
+		System.arraycopy(ends, hi + 1, ends, lo + added, count - hi - 1);
+		for (int k = 0; k < added; ++k) {
+			starts[lo + k] = bounds[2 * k];
+			ends[lo + k] = bounds[2 * k + 1];
+		}
+		count = newCount;
+	}
+
 	@Override
 	public String toString() {
-		return "[" + stream().sorted().mapToObj(t -> Integer.toString(t)).collect(Collectors.joining(",")) + "]";
+		return "[" + stream().mapToObj(t -> Integer.toString(t)).collect(Collectors.joining(",")) + "]";
 	}
 }
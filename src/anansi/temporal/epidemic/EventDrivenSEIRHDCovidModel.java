@@ -0,0 +1,107 @@
+package anansi.temporal.epidemic;
+
+import java.util.random.RandomGenerator;
+
+import anansi.core.Coalition;
+import anansi.temporal.TemporalGraph;
+import anansi.utils.IndexedHeap;
+
+/**
+ * Event-driven simulation of the SEIRHD model of COVID-19, with the same transition probabilities as
+ * {@link TemporalSEIRHDCovidModel}. When a node enters a compartment, the time step of its next transition is sampled
+ * from the geometric distribution and put in a priority queue, and in every time step only transitions scheduled
+ * for this step and infection attempts along contacts of infectious nodes are processed.
+ *
+ * @author Marcin Waniek
+ */
+public class EventDrivenSEIRHDCovidModel extends TemporalSEIRHDCovidModel {
+
+	private IndexedHeap events;
+	private int step;
+
+	public EventDrivenSEIRHDCovidModel() {
+		this.events = null;
+		this.step = 0;
+	}
+
+	public EventDrivenSEIRHDCovidModel(EventDrivenSEIRHDCovidModel tcm) {
+		super(tcm);
+		this.events = tcm.events == null ? null : new IndexedHeap(tcm.events);
+		this.step = tcm.step;
+	}
+
+	@Override
+	public EventDrivenSEIRHDCovidModel fork() {
+		return new EventDrivenSEIRHDCovidModel(this);
+	}
+
+	@Override
+	public String getName() {
+		return "SEIRHD-Covid-Event";
+	}
+
+	@Override
+	protected void startDiffusion(Coalition source, TemporalGraph g) {
+		super.startDiffusion(source, g);
+		events = new IndexedHeap(g.size());
+		step = -1;
+		source.forEach(i -> schedule(i, INFECTED));
+	}
+
+	@Override
+	protected void move(int i, byte c) {
+		super.move(i, c);
+		schedule(i, c);
+	}
+
+	/**
+	 * Samples the time step of the next transition of node i that entered compartment c in the current step
+	 * (the first attempt takes place in the next step).
+	 */
+	private void schedule(int i, byte c) {
+		double p;
+		switch (c) {
+			case EXPOSED: p = getEpsilon(); break;
+			case INFECTED: p = getMuP(); break;
+			case INFECTED_ASYMPT:
+			case INFECTED_SYMPT: p = getGamma(); break;
+			case HOSPITALIZED: p = getLambdaHD() + getLambdaHR(); break;
+			default: p = 0.;
+		}
+		if (p <= 0.)
+			events.remove(i);
+		else if (p >= 1.)
+			events.put(i, step + 1);
+		else
+			events.put(i, step + 1 + Math.floor(Math.log(1. - rand().nextDouble()) / Math.log1p(-p)));
+	}
+
+	@Override
+	protected void executeOneStep(int t) {
+		RandomGenerator rand = rand();
+		step = t;
+		while (!events.isEmpty() && events.peekKey() <= t) {
+			int i = events.poll();
+			switch (getState(i)) {
+				case HOSPITALIZED:
+					move(i, rand.nextDouble() * (getLambdaHD() + getLambdaHR()) < getLambdaHD() ? DEAD : RECOVERED);
+					break;
+				case INFECTED_SYMPT:
+					move(i, rand.nextDouble() < getpH() ? HOSPITALIZED : RECOVERED);
+					break;
+				case INFECTED_ASYMPT:
+					move(i, RECOVERED);
+					break;
+				case INFECTED:
+					move(i, rand.nextDouble() < getpA() ? INFECTED_ASYMPT : INFECTED_SYMPT);
+					break;
+				case EXPOSED:
+					move(i, INFECTED);
+					setInfectionTime(i, t);
+					break;
+			}
+		}
+		if (t < g.getT())
+			exposeByPressure(t, rand);
+	}
+}
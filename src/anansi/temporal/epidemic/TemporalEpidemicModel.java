@@ -1,10 +1,12 @@
 package anansi.temporal.epidemic;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.random.RandomGenerator;
 
 import anansi.core.Coalition;
+import anansi.core.DenseCoalition;
 import anansi.temporal.TemporalGraph;
+import anansi.utils.PagedIntArray;
+import anansi.utils.RandomSource;
 
 /**
  * Representation of an epidemic diffusion model for temporal graphs.
@@ -13,27 +15,43 @@ import anansi.temporal.TemporalGraph;
  */
 public abstract class TemporalEpidemicModel {
 
+	public static final int NOT_INFECTED = Integer.MAX_VALUE;
+
 	protected Coalition infected;
-	protected Map<Integer,Integer> infectionTime;
+	protected PagedIntArray infectionTime;
 	protected TemporalGraph g;
 	protected int t;
+	protected RandomGenerator rand;
 	
 	public TemporalEpidemicModel() {
 		this.infected = null;
 		this.infectionTime = null;
 		this.g = null;
 		this.t = 0;
+		this.rand = null;
 	}
 	
 	public TemporalEpidemicModel(TemporalEpidemicModel tem) {
-		this.infected = new Coalition(tem.infected);
-		this.infectionTime = new HashMap<>(tem.infectionTime);
+		this.infected = tem.infected.copy();
+		this.infectionTime = tem.infectionTime.fork();
 		this.g = tem.g;
 		this.t = tem.t;
+		this.rand = tem.rand;
 	}
 	
 	public abstract String getName();
 	
+	/**
+	 * Sets the generator used by the model (by default, the generator bound to the current thread).
+	 */
+	public void setRandom(RandomGenerator rand) {
+		this.rand = rand;
+	}
+	
+	protected RandomGenerator rand() {
+		return rand == null ? RandomSource.get() : rand;
+	}
+	
 	public Coalition getInfected() {
 		return infected;
 	}
@@ -58,10 +76,25 @@ public abstract class TemporalEpidemicModel {
 		return (double) getEverInfected().size() / (getEverInfected().size() - getNowInfected().size()); 
 	}
 	
+	/**
+	 * Infection time of node i, or null if it has not been infected.
+	 */
 	public Integer getInfectionTime(int i) {
+		int res = infectionTime.get(i);
+		return res == NOT_INFECTED ? null : res;
+	}
+	
+	/**
+	 * Infection time of node i, or NOT_INFECTED if it has not been infected (which is later than any other time).
+	 */
+	public int getInfectionTimeInt(int i) {
 		return infectionTime.get(i);
 	}
 	
+	protected void setInfectionTime(int i, int t) {
+		infectionTime.set(i, t);
+	}
+	
 	public Coalition runDiffusion(int source, TemporalGraph g) {
 		return runDiffusion(new Coalition(source), g);
 	}
@@ -83,10 +116,11 @@ public abstract class TemporalEpidemicModel {
 	
 	protected void startDiffusion(Coalition source, TemporalGraph g) {
 		this.g = g;
-		this.infected = new Coalition(source);
-		this.infectionTime = new HashMap<>();
+		this.infected = new DenseCoalition(g.size(), source);
+		this.infectionTime = new PagedIntArray(g.size());
+		this.infectionTime.fill(NOT_INFECTED);
 		this.t = 0;
-		source.forEach(i -> this.infectionTime.put(i, 0));
+		source.forEach(i -> this.infectionTime.set(i, 0));
 	}
 	
 	public Coalition continueDiffusion(int totalRounds) {
@@ -1,8 +1,13 @@
 package anansi.temporal.epidemic;
 
+import java.util.random.RandomGenerator;
+
 import anansi.core.Coalition;
+import anansi.core.DenseCoalition;
+import anansi.temporal.ContactIndex;
 import anansi.temporal.TemporalGraph;
-import anansi.utils.Utils;
+import anansi.utils.PagedByteArray;
+import anansi.utils.PagedIntArray;
 
 /**\
  * The SERIHD model of COVID-19 based on Rusu et al. (without the tracing component).
@@ -14,18 +19,33 @@ import anansi.utils.Utils;
   year={2021},
   publisher={Cold Spring Harbor Laboratory Press}
 }
+ * 
+ * The compartment of every node is kept in an array, together with lists of members of every compartment,
+ * so a step of the simulation does not allocate memory and visits only nodes that may change their state.
+ * New exposures are found either by scanning contacts of all susceptible nodes, or (in the infection pressure mode)
+ * by following contacts of infectious nodes, which is faster when few nodes are infectious.
  * 
  * @author Marcin Waniek
  */
 public class TemporalSEIRHDCovidModel extends TemporalEpidemicModel {
 
-	private Coalition susceptible;
-	private Coalition exposed;
-	private Coalition infectedAsympt;
-	private Coalition infectedSympt;
-	private Coalition hospitalized;
-	private Coalition recovered;
-	private Coalition dead;
+	public static final byte SUSCEPTIBLE = 0;
+	public static final byte EXPOSED = 1;
+	public static final byte INFECTED = 2; // presymptomatic
+	public static final byte INFECTED_ASYMPT = 3;
+	public static final byte INFECTED_SYMPT = 4;
+	public static final byte HOSPITALIZED = 5;
+	public static final byte RECOVERED = 6;
+	public static final byte DEAD = 7;
+	private static final int COMPARTMENTS = 8;
+
+	private PagedByteArray state;
+	private PagedIntArray[] members;
+	private int[] count;
+	private PagedIntArray position;
+	private int[] pressure;
+	private int[] pressured;
+	private boolean infectionPressure;
 	
 	private double lambdaHD;
 	private double lambdaHR;
@@ -46,25 +66,27 @@ public class TemporalSEIRHDCovidModel extends TemporalEpidemicModel {
 	private static final double DEF_BETA = .0791;
 		
 	public TemporalSEIRHDCovidModel() {
-		this.susceptible = null;
-		this.exposed = null;
-		this.infectedAsympt = null;
-		this.infectedSympt = null;
-		this.hospitalized = null;
-		this.recovered = null;
-		this.dead = null;
+		this.state = null;
+		this.members = null;
+		this.count = null;
+		this.position = null;
+		this.pressure = null;
+		this.pressured = null;
+		this.infectionPressure = false;
 		setDefaultParams();
 	}
 	
 	public TemporalSEIRHDCovidModel(TemporalSEIRHDCovidModel tcm) {
 		super(tcm);
-		this.susceptible = new Coalition(tcm.susceptible);
-		this.exposed = new Coalition(tcm.exposed);
-		this.infectedAsympt = new Coalition(tcm.infectedAsympt);
-		this.infectedSympt = new Coalition(tcm.infectedSympt);
-		this.hospitalized = new Coalition(tcm.hospitalized);
-		this.recovered = new Coalition(tcm.recovered);
-		this.dead = new Coalition(tcm.dead);
+		this.state = tcm.state.fork();
+		this.members = new PagedIntArray[COMPARTMENTS];
+		for (int c = 0; c < COMPARTMENTS; ++c)
+			this.members[c] = tcm.members[c].fork();
+		this.count = tcm.count.clone();
+		this.position = tcm.position.fork();
+		this.pressure = null;
+		this.pressured = null;
+		this.infectionPressure = tcm.infectionPressure;
 		this.lambdaHD = tcm.lambdaHD;
 		this.lambdaHR = tcm.lambdaHR;
 		this.gamma = tcm.gamma;
@@ -92,33 +114,81 @@ public class TemporalSEIRHDCovidModel extends TemporalEpidemicModel {
 		return this;
 	}
 	
+	/**
+	 * In the infection pressure mode new exposures are found by following contacts of infectious nodes
+	 * instead of scanning contacts of all susceptible nodes (the distribution of outcomes is the same).
+	 */
+	public TemporalSEIRHDCovidModel setInfectionPressure(boolean infectionPressure) {
+		this.infectionPressure = infectionPressure;
+		return this;
+	}
+	
+	public boolean isInfectionPressure() {
+		return infectionPressure;
+	}
+	
+	/**
+	 * Copy of the model sharing the memory with this model until either of them changes (see {@link PagedIntArray}).
+	 */
+	public TemporalSEIRHDCovidModel fork() {
+		return new TemporalSEIRHDCovidModel(this);
+	}
+	
+	public byte getState(int i) {
+		return state.get(i);
+	}
+	
+	public int getCompartmentSize(byte c) {
+		return count[c];
+	}
+	
+	public boolean isSusceptible(int i) {
+		return state.get(i) == SUSCEPTIBLE;
+	}
+	
+	public boolean isNowInfected(int i) {
+		byte c = state.get(i);
+		return c >= INFECTED && c <= INFECTED_SYMPT;
+	}
+	
+	public boolean isEverInfectedAndAlive(int i) {
+		byte c = state.get(i);
+		return c >= INFECTED && c <= RECOVERED;
+	}
+	
+	public boolean isDead(int i) {
+		return state.get(i) == DEAD;
+	}
+	
+	// Compartments are returned as new coalitions (changes are not reflected in the model)
+	
 	public Coalition getSusceptible() {
-		return susceptible;
+		return getCompartments(SUSCEPTIBLE);
 	}
 	
 	public Coalition getExposed() {
-		return exposed;
+		return getCompartments(EXPOSED);
 	}
 	
 	public Coalition getInfectedAsympt() {
-		return infectedAsympt;
+		return getCompartments(INFECTED_ASYMPT);
 	}
 	
 	public Coalition getInfectedSympt() {
-		return infectedSympt;
+		return getCompartments(INFECTED_SYMPT);
 	}
 	
 	public Coalition getRecovered() {
-		return recovered;
+		return getCompartments(RECOVERED);
 	}
 	
 	public Coalition getHospitalized() {
-		return hospitalized;
+		return getCompartments(HOSPITALIZED);
 	}
 	
 	@Override
 	public Coalition getDead() {
-		return dead;
+		return getCompartments(DEAD);
 	}
 	
 	public double getLambdaHD() {
@@ -195,108 +265,157 @@ public class TemporalSEIRHDCovidModel extends TemporalEpidemicModel {
 
 	@Override
 	public Coalition getEverInfected() {
-		return Coalition.add(getEverInfectedAndAlive(), getDead());
+		return getCompartments(INFECTED, INFECTED_ASYMPT, INFECTED_SYMPT, HOSPITALIZED, RECOVERED, DEAD);
 	}
 
 	@Override
 	public Coalition getEverInfectedAndAlive() {
-		return Coalition.add(infected, infectedSympt, infectedAsympt, hospitalized, recovered);
+		return getCompartments(INFECTED, INFECTED_ASYMPT, INFECTED_SYMPT, HOSPITALIZED, RECOVERED);
 	}
 	
 	@Override
 	public Coalition getNowInfected() {
-		return Coalition.add(infected, infectedSympt, infectedAsympt);
+		return getCompartments(INFECTED, INFECTED_ASYMPT, INFECTED_SYMPT);
+	}
+	
+	private DenseCoalition getCompartments(byte... cs) {
+		if (state == null)
+			return null;
+		DenseCoalition res = new DenseCoalition(state.length());
+		for (byte c : cs)
+			for (int k = 0; k < count[c]; ++k)
+				res.add(members[c].get(k));
+		return res;
 	}
 	
 	public void vaccinate(int i) {
-		if (!dead.contains(i) && !hospitalized.contains(i)) {
-			susceptible.remove(i);
-			exposed.remove(i);
-			infected.remove(i);
-			infectedAsympt.remove(i);
-			infectedSympt.remove(i);
-			recovered.add(i);
-		}
+		byte c = state.get(i);
+		if (c != DEAD && c != HOSPITALIZED && c != RECOVERED)
+			move(i, RECOVERED);
 	}
 	
 	@Override
 	protected void startDiffusion(Coalition source, TemporalGraph g) {
 		super.startDiffusion(source, g);
-		susceptible = g.nodesCoalition().remove(source);
-		exposed = new Coalition();
-		infectedAsympt = new Coalition();
-		infectedSympt = new Coalition();
-		hospitalized = new Coalition();
-		recovered = new Coalition();
-		dead = new Coalition(); 
+		int n = g.size();
+		state = new PagedByteArray(n);
+		members = new PagedIntArray[COMPARTMENTS];
+		for (int c = 0; c < COMPARTMENTS; ++c)
+			members[c] = new PagedIntArray(n);
+		count = new int[COMPARTMENTS];
+		position = new PagedIntArray(n);
+		pressure = null;
+		pressured = null;
+		for (int i = 0; i < n; ++i) {
+			byte c = infected.contains(i) ? INFECTED : SUSCEPTIBLE;
+			state.set(i, c);
+			position.set(i, count[c]);
+			members[c].set(count[c]++, i);
+		}
+	}
+	
+	/**
+	 * Moves node i to compartment c (lists are updated by swapping i with the last member of its compartment).
+	 */
+	protected void move(int i, byte c) {
+		byte from = state.get(i);
+		int last = members[from].get(--count[from]);
+		members[from].set(position.get(i), last);
+		position.set(last, position.get(i));
+		members[c].set(count[c], i);
+		position.set(i, count[c]++);
+		state.set(i, c);
+		if (from == INFECTED)
+			infected.remove(i);
+		else if (c == INFECTED)
+			infected.add(i);
 	}
 
+	/*
+	 * Members of a compartment are visited from the last one, so that removing a member moves to its place a node
+	 * that has already been visited. Compartments are processed in an order in which no node moves twice in a step.
+	 */
 	@Override
 	protected void executeOneStep(int t) {
+		RandomGenerator rand = rand();
+		
 		// H->D and H->R
-		hospitalized.filter(i -> {
-			double r = Utils.RAND.nextDouble();
-			if (r < lambdaHD + lambdaHR) {
-				if (r < lambdaHD)
-					dead.add(i);
-				else
-					recovered.add(i);
-				return false;
-			} else
-				return true;
-		});
+		for (int k = count[HOSPITALIZED] - 1; k >= 0; --k) {
+			double r = rand.nextDouble();
+			if (r < lambdaHD + lambdaHR)
+				move(members[HOSPITALIZED].get(k), r < lambdaHD ? DEAD : RECOVERED);
+		}
 		
 		// Is->H and Is->R
-		infectedSympt.filter(i -> {
-			if (Utils.RAND.nextDouble() < gamma) {
-				if (Utils.RAND.nextDouble() < pH)
-					hospitalized.add(i);
-				else
-					recovered.add(i);
-				return false;
-			} else
-				return true;
-		});
+		for (int k = count[INFECTED_SYMPT] - 1; k >= 0; --k)
+			if (rand.nextDouble() < gamma)
+				move(members[INFECTED_SYMPT].get(k), rand.nextDouble() < pH ? HOSPITALIZED : RECOVERED);
 		
 		// Ia->R
-		infectedAsympt.filter(i -> {
-			if (Utils.RAND.nextDouble() < gamma) {
-				recovered.add(i);
-				return false;
-			} else
-				return true;
-		});
+		for (int k = count[INFECTED_ASYMPT] - 1; k >= 0; --k)
+			if (rand.nextDouble() < gamma)
+				move(members[INFECTED_ASYMPT].get(k), RECOVERED);
 		
 		// Ip -> Ia and Ip -> Is
-		infected.filter(i -> {
-			if (Utils.RAND.nextDouble() < muP) {
-				if (Utils.RAND.nextDouble() < pA)
-					infectedAsympt.add(i);
-				else
-					infectedSympt.add(i);
-				return false;
-			} else
-				return true;
-		});
+		for (int k = count[INFECTED] - 1; k >= 0; --k)
+			if (rand.nextDouble() < muP)
+				move(members[INFECTED].get(k), rand.nextDouble() < pA ? INFECTED_ASYMPT : INFECTED_SYMPT);
 		
 		// E->Ip
-		exposed.filter(i -> {
-			if (Utils.RAND.nextDouble() < epsilon) {
-				infected.add(i);
-				infectionTime.put(i, t);
-				return false;
-			} else
-				return true;
-		});
+		for (int k = count[EXPOSED] - 1; k >= 0; --k)
+			if (rand.nextDouble() < epsilon) {
+				int i = members[EXPOSED].get(k);
+				move(i, INFECTED);
+				setInfectionTime(i, t);
+			}
 		
 		// S->E
-		susceptible.filter(i -> {
-			if (Utils.RAND.nextDouble() < beta * g.getTPredsStream(i, t)
-					.filter(j -> infected.contains(j) || infectedAsympt.contains(j) || infectedSympt.contains(j)).count()) {
-				exposed.add(i);
-				return false;
-			} else
-				return true;
-		});
+		if (t < g.getT()) {
+			if (infectionPressure)
+				exposeByPressure(t, rand);
+			else
+				exposeSusceptible(t, rand);
+		}
+	}
+	
+	private void exposeSusceptible(int t, RandomGenerator rand) {
+		ContactIndex contacts = g.contacts();
+		int[] offsets = contacts.getPredOffsets(t);
+		int[] sources = contacts.getPredTargets(t);
+		for (int k = count[SUSCEPTIBLE] - 1; k >= 0; --k) {
+			int i = members[SUSCEPTIBLE].get(k);
+			int infectious = 0;
+			for (int p = offsets[i]; p < offsets[i + 1]; ++p)
+				if (isNowInfected(sources[p]))
+					++infectious;
+			if (infectious > 0 && rand.nextDouble() < beta * infectious)
+				move(i, EXPOSED);
+		}
+	}
+	
+	protected void exposeByPressure(int t, RandomGenerator rand) {
+		ContactIndex contacts = g.contacts();
+		int[] offsets = contacts.getSuccOffsets(t);
+		int[] targets = contacts.getSuccTargets(t);
+		if (pressure == null) {
+			pressure = new int[state.length()];
+			pressured = new int[state.length()];
+		}
+		int pressuredCount = 0;
+		for (byte c = INFECTED; c <= INFECTED_SYMPT; ++c)
+			for (int k = 0; k < count[c]; ++k) {
+				int j = members[c].get(k);
+				for (int p = offsets[j]; p < offsets[j + 1]; ++p) {
+					int i = targets[p];
+					if (state.get(i) == SUSCEPTIBLE && pressure[i]++ == 0)
+						pressured[pressuredCount++] = i;
+				}
+			}
+		for (int k = 0; k < pressuredCount; ++k) {
+			int i = pressured[k];
+			if (rand.nextDouble() < beta * pressure[i])
+				move(i, EXPOSED);
+			pressure[i] = 0;
+		}
 	}
 }
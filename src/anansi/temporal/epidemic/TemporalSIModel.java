@@ -3,7 +3,6 @@ package anansi.temporal.epidemic;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import anansi.utils.Utils;
 
 /**
  * Susceptible-Infected epidemic diffusion model for temporal graphs.
@@ -27,13 +26,13 @@ public class TemporalSIModel extends TemporalEpidemicModel {
 	protected void executeOneStep(int t) {
 		for (int i : getNewlyInfected(t)) {
 			infected.add(i);
-			infectionTime.put(i, t);
+			setInfectionTime(i, t);
 		}
 	}
 	
 	protected List<Integer> getNewlyInfected(int t) {
 		return infected.stream().flatMap(i -> g.getTSuccsStream(i, t))
-			.filter(j -> !infected.contains(j) && Utils.RAND.nextDouble() <= infectionProb).boxed()
+			.filter(j -> !infected.contains(j) && rand().nextDouble() <= infectionProb).boxed()
 			.collect(Collectors.toList());
 	}
 }
@@ -4,8 +4,8 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import anansi.core.Coalition;
+import anansi.core.DenseCoalition;
 import anansi.temporal.TemporalGraph;
-import anansi.utils.Utils;
 
 /**
  * Susceptible-Infected-Recovered epidemic diffusion model for temporal graphs.
@@ -40,18 +40,18 @@ public class TemporalSIRModel extends TemporalSIModel {
 	@Override
 	public void startDiffusion(Coalition source, TemporalGraph g) {
 		super.startDiffusion(source, g);
-		this.recovered = new Coalition();
+		this.recovered = new DenseCoalition(g.size());
 	}
 
 	@Override
 	protected void executeOneStep(int t) {
 		List<Integer> newlyInfected = getNewlyInfected(t);
 		newlyInfected.removeIf(i -> recovered.contains(i));
-		List<Integer> newlyResistant = infected.stream().filter(i -> Utils.RAND.nextDouble() <= recoveryProb)
+		List<Integer> newlyResistant = infected.stream().filter(i -> rand().nextDouble() <= recoveryProb)
 				.boxed().collect(Collectors.toList());
 		for (int i : newlyInfected) {
 			infected.add(i);
-			infectionTime.put(i, t);
+			setInfectionTime(i, t);
 		}
 		infected.removeAll(newlyResistant);
 		recovered.addAll(newlyResistant);
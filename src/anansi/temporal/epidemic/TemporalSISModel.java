@@ -3,8 +3,8 @@ package anansi.temporal.epidemic;
 import java.util.List;
 
 import anansi.core.Coalition;
+import anansi.core.DenseCoalition;
 import anansi.temporal.TemporalGraph;
-import anansi.utils.Utils;
 
 /**
  * Susceptible-Infected-Susceptible epidemic diffusion model for temporal graphs.
@@ -35,17 +35,17 @@ public class TemporalSISModel extends TemporalSIModel {
 	@Override
 	protected void startDiffusion(Coalition source, TemporalGraph g) {
 		super.startDiffusion(source, g);
-		everInfected = new Coalition(source);
+		everInfected = new DenseCoalition(g.size(), source);
 	}
 
 	@Override
 	protected void executeOneStep(int t) {
 		List<Integer> newlyInfected = getNewlyInfected(t);
 		everInfected.addAll(newlyInfected);
-		infected.filter(i -> Utils.RAND.nextDouble() <= 1. - resetProb);
+		infected.filter(i -> rand().nextDouble() <= 1. - resetProb);
 		for (int i : newlyInfected) {
 			infected.add(i);
-			infectionTime.put(i, t);
+			setInfectionTime(i, t);
 		}
 	}
 }
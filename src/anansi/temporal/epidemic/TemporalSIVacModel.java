@@ -4,8 +4,8 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import anansi.core.Coalition;
+import anansi.core.DenseCoalition;
 import anansi.temporal.TemporalGraph;
-import anansi.utils.Utils;
 
 /**
  * Susceptible-Infected epidemic diffusion model with vaccinated state for temporal graphs.
@@ -33,13 +33,13 @@ public class TemporalSIVacModel extends TemporalSIModel {
 	@Override
 	protected void startDiffusion(Coalition source, TemporalGraph g) {
 		super.startDiffusion(source, g);
-		this.vaccinated = new Coalition();
+		this.vaccinated = new DenseCoalition(g.size());
 	}
 	
 	@Override
 	protected List<Integer> getNewlyInfected(int t) {
 		return infected.stream().filter(i -> !vaccinated.contains(i)).flatMap(i -> g.getTSuccsStream(i, t))
-			.filter(j -> !infected.contains(j) && !vaccinated.contains(j) && Utils.RAND.nextDouble() <= infectionProb)
+			.filter(j -> !infected.contains(j) && !vaccinated.contains(j) && rand().nextDouble() <= infectionProb)
 			.boxed().collect(Collectors.toList());
 	}
 }
@@ -0,0 +1,74 @@
+package anansi.utils;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Sampling indices {0,...,n-1} with probabilities proportional to fixed weights in O(1) time,
+ * with alias tables constructed by the method of Vose in O(n) time.
+ *
+ * @author Marcin Waniek
+ */
+public class AliasSampler {
+
+	private double[] prob;
+	private int[] alias;
+	private double total;
+
+	public AliasSampler(double[] weights) {
+		int n = weights.length;
+		this.prob = new double[n];
+		this.alias = new int[n];
+		this.total = 0.;
+		for (double w : weights)
+			total += w;
+		if (total <= 0.)
+			return;
+		int[] small = new int[n];
+		int[] large = new int[n];
+		int s = 0;
+		int l = 0;
+		for (int i = 0; i < n; ++i) {
+			prob[i] = weights[i] * n / total;
+			if (prob[i] < 1.)
+				small[s++] = i;
+			else
+				large[l++] = i;
+		}
+		while (s > 0 && l > 0) {
+			int i = small[--s];
+			int j = large[--l];
+			alias[i] = j;
+			prob[j] += prob[i] - 1.;
+			if (prob[j] < 1.)
+				small[s++] = j;
+			else
+				large[l++] = j;
+		}
+		while (l > 0)
+			prob[large[--l]] = 1.;
+		while (s > 0)
+			prob[small[--s]] = 1.;
+	}
+
+	public int size() {
+		return prob.length;
+	}
+
+	public double getTotal() {
+		return total;
+	}
+
+	/**
+	 * Draws an index, or returns -1 if all weights are zero.
+	 */
+	public int draw(RandomGenerator rand) {
+		if (total <= 0.)
+			return -1;
+		int i = rand.nextInt(prob.length);
+		return rand.nextDouble() < prob[i] ? i : alias[i];
+	}
+
+	public int draw() {
+		return draw(RandomSource.get());
+	}
+}
@@ -0,0 +1,92 @@
+package anansi.utils;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Sampling indices {0,...,n-1} with probabilities proportional to weights that may change over time,
+ * with weights kept in a Fenwick tree. Changing a weight and drawing take O(log n) time;
+ * an index can be excluded from drawing by setting its weight to zero.
+ *
+ * @author Marcin Waniek
+ */
+public class FenwickSampler {
+
+	private double[] tree;
+	private double[] weights;
+	private int top;
+
+	public FenwickSampler(int n) {
+		this.tree = new double[n + 1];
+		this.weights = new double[n];
+		this.top = n == 0 ? 0 : Integer.highestOneBit(n);
+	}
+
+	public FenwickSampler(double[] weights) {
+		this(weights.length);
+		for (int i = 0; i < weights.length; ++i) {
+			this.weights[i] = weights[i];
+			tree[i + 1] += weights[i];
+			int parent = (i + 1) + ((i + 1) & -(i + 1));
+			if (parent < tree.length)
+				tree[parent] += tree[i + 1];
+		}
+	}
+
+	public int size() {
+		return weights.length;
+	}
+
+	public double get(int i) {
+		return weights[i];
+	}
+
+	public void set(int i, double w) {
+		add(i, w - weights[i]);
+	}
+
+	public void add(int i, double delta) {
+		weights[i] += delta;
+		for (int k = i + 1; k < tree.length; k += k & -k)
+			tree[k] += delta;
+	}
+
+	/**
+	 * Sum of weights of indices {0,...,i-1}.
+	 */
+	public double prefixSum(int i) {
+		double res = 0.;
+		for (int k = i; k > 0; k -= k & -k)
+			res += tree[k];
+		return res;
+	}
+
+	public double getTotal() {
+		return prefixSum(weights.length);
+	}
+
+	/**
+	 * Draws an index, or returns -1 if all weights are zero.
+	 */
+	public int draw(RandomGenerator rand) {
+		double total = getTotal();
+		if (total <= 0.)
+			return -1;
+		double v = rand.nextDouble() * total;
+		int pos = 0;
+		for (int step = top; step > 0; step >>= 1)
+			if (pos + step < tree.length && tree[pos + step] <= v) {
+				pos += step;
+				v -= tree[pos];
+			}
+		// rounding errors may lead past the last index with a positive weight
+		while (pos > 0 && (pos >= weights.length || weights[pos] <= 0.))
+			--pos;
+		while (pos < weights.length - 1 && weights[pos] <= 0.)
+			++pos;
+		return weights[pos] > 0. ? pos : -1;
+	}
+
+	public int draw() {
+		return draw(RandomSource.get());
+	}
+}
@@ -0,0 +1,159 @@
+package anansi.utils;
+
+import java.util.Arrays;
+
+/**
+ * Priority queue of integers from {0,...,n-1} with double keys, implemented as an indexed d-ary heap.
+ * Supports changing the key of an element in O(log n) time. Elements with equal keys are ordered by their value,
+ * which makes the order of polling deterministic. Keys are stored in the order of the heap, and positions
+ * of elements in a {@link PagedIntArray}, so a copy of the heap costs time proportional to its size
+ * rather than to n.
+ *
+ * @author Marcin Waniek
+ */
+public class IndexedHeap {
+
+	private static final int D = 4;
+
+	private int[] heap;
+	private double[] keys;
+	private PagedIntArray pos; // position in the heap plus one, 0 if absent
+	private int size;
+
+	public IndexedHeap(int n) {
+		this.heap = new int[Math.min(n, 16)];
+		this.keys = new double[heap.length];
+		this.pos = new PagedIntArray(n);
+		this.size = 0;
+	}
+
+	/**
+	 * Copy of the heap; positions are shared with h until either of the heaps changes.
+	 */
+	public IndexedHeap(IndexedHeap h) {
+		this.heap = Arrays.copyOf(h.heap, h.size);
+		this.keys = Arrays.copyOf(h.keys, h.size);
+		this.pos = h.pos.fork();
+		this.size = h.size;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int i) {
+		return pos.get(i) > 0;
+	}
+
+	public double getKey(int i) {
+		return keys[pos.get(i) - 1];
+	}
+
+	public int peek() {
+		return heap[0];
+	}
+
+	public double peekKey() {
+		return keys[0];
+	}
+
+	/**
+	 * Adds an element with the given key, or changes its key if it is already in the heap.
+	 */
+	public void put(int i, double key) {
+		int k = pos.get(i) - 1;
+		if (k < 0) {
+			if (size == heap.length) {
+				heap = Arrays.copyOf(heap, Math.min(pos.length(), Math.max(16, 2 * size)));
+				keys = Arrays.copyOf(keys, heap.length);
+			}
+			heap[size] = i;
+			keys[size] = key;
+			siftUp(size++);
+		} else if (key < keys[k]) {
+			keys[k] = key;
+			siftUp(k);
+		} else {
+			keys[k] = key;
+			siftDown(k);
+		}
+	}
+
+	/**
+	 * Removes and returns the element with the smallest key.
+	 */
+	public int poll() {
+		int res = heap[0];
+		removeAt(0);
+		return res;
+	}
+
+	public void remove(int i) {
+		if (pos.get(i) > 0)
+			removeAt(pos.get(i) - 1);
+	}
+
+	public void clear() {
+		for (int k = 0; k < size; ++k)
+			pos.set(heap[k], 0);
+		size = 0;
+	}
+
+	private void removeAt(int k) {
+		pos.set(heap[k], 0);
+		if (k < --size) {
+			heap[k] = heap[size];
+			keys[k] = keys[size];
+			siftDown(k);
+			siftUp(k);
+		}
+	}
+
+	private boolean less(double key, int i, int k) {
+		return key < keys[k] || (key == keys[k] && i < heap[k]);
+	}
+
+	private void siftUp(int k) {
+		int i = heap[k];
+		double key = keys[k];
+		while (k > 0) {
+			int parent = (k - 1) / D;
+			if (!less(key, i, parent))
+				break;
+			heap[k] = heap[parent];
+			keys[k] = keys[parent];
+			pos.set(heap[k], k + 1);
+			k = parent;
+		}
+		heap[k] = i;
+		keys[k] = key;
+		pos.set(i, k + 1);
+	}
+
+	private void siftDown(int k) {
+		int i = heap[k];
+		double key = keys[k];
+		while (true) {
+			int first = D * k + 1;
+			if (first >= size)
+				break;
+			int best = first;
+			for (int c = first + 1; c < Math.min(first + D, size); ++c)
+				if (less(keys[c], heap[c], best))
+					best = c;
+			if (less(key, i, best))
+				break;
+			heap[k] = heap[best];
+			keys[k] = keys[best];
+			pos.set(heap[k], k + 1);
+			k = best;
+		}
+		heap[k] = i;
+		keys[k] = key;
+		pos.set(i, k + 1);
+	}
+}
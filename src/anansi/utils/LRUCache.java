@@ -0,0 +1,131 @@
+package anansi.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache bounded by the total weight of its values (e.g., their size in bytes), evicting least recently used
+ * entries first. The most recently inserted entry is always kept, even if it alone exceeds the capacity.
+ * All operations are thread-safe; values are computed outside of the lock.
+ *
+ * @author Marcin Waniek
+ */
+public class LRUCache<K,V> {
+
+	private LinkedHashMap<K,V> map;
+	private ToLongFunction<V> weigher;
+	private long capacity;
+	private long weight;
+	private long hits;
+	private long misses;
+
+	public LRUCache(long capacity, ToLongFunction<V> weigher) {
+		this.map = new LinkedHashMap<>(16, .75f, true);
+		this.weigher = weigher;
+		this.capacity = capacity;
+		this.weight = 0;
+		this.hits = 0;
+		this.misses = 0;
+	}
+
+	/**
+	 * Returns the value for the given key, computing and inserting it if it is not present.
+	 */
+	public V get(K key, Function<K,V> loader) {
+		synchronized (this) {
+			V res = map.get(key);
+			if (res != null) {
+				++hits;
+				return res;
+			}
+			++misses;
+		}
+		V res = loader.apply(key);
+		put(key, res);
+		return res;
+	}
+
+	public synchronized V getIfPresent(K key) {
+		return map.get(key);
+	}
+
+	public synchronized void put(K key, V value) {
+		V old = map.put(key, value);
+		if (old != null)
+			weight -= weigher.applyAsLong(old);
+		weight += weigher.applyAsLong(value);
+		evict();
+	}
+
+	public synchronized void invalidate(K key) {
+		V old = map.remove(key);
+		if (old != null)
+			weight -= weigher.applyAsLong(old);
+	}
+
+	/**
+	 * Removes all entries satisfying the given predicate.
+	 */
+	public synchronized void invalidateIf(BiPredicate<K,V> p) {
+		for (Iterator<Map.Entry<K,V>> it = map.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<K,V> e = it.next();
+			if (p.test(e.getKey(), e.getValue())) {
+				weight -= weigher.applyAsLong(e.getValue());
+				it.remove();
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		map.clear();
+		weight = 0;
+	}
+
+	public synchronized void setCapacity(long capacity) {
+		this.capacity = capacity;
+		evict();
+	}
+
+	public synchronized long getCapacity() {
+		return capacity;
+	}
+
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	public synchronized int size() {
+		return map.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized void resetCounters() {
+		hits = 0;
+		misses = 0;
+	}
+
+	private void evict() {
+		Iterator<V> it = map.values().iterator();
+		while (weight > capacity && map.size() > 1) {
+			V v = it.next();
+			weight -= weigher.applyAsLong(v);
+			it.remove();
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "LRUCache[size=" + map.size() + ", weight=" + weight + "/" + capacity + ", hits=" + hits + ", misses=" + misses + "]";
+	}
+}
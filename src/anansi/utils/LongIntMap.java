@@ -0,0 +1,92 @@
+package anansi.utils;
+
+import java.util.Arrays;
+
+/**
+ * Map from long keys to consecutive int identifiers {0,...,size-1}, assigned in the order of insertion.
+ * Implemented as an open-addressing hash table with linear probing, without boxing.
+ *
+ * @author Marcin Waniek
+ */
+public class LongIntMap {
+
+	private static final int NONE = -1;
+
+	private long[] keys;
+	private int[] table;
+	private int size;
+
+	public LongIntMap() {
+		this(16);
+	}
+
+	public LongIntMap(int expected) {
+		this.keys = new long[Math.max(16, expected)];
+		this.table = new int[tableSize(keys.length)];
+		this.size = 0;
+		Arrays.fill(table, NONE);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Identifier of the key, or -1 if it is not present.
+	 */
+	public int get(long key) {
+		int res;
+		for (int k = slot(key); (res = table[k]) != NONE; k = (k + 1) & (table.length - 1))
+			if (keys[res] == key)
+				return res;
+		return NONE;
+	}
+
+	/**
+	 * Identifier of the key, assigning the next one if it is not present.
+	 */
+	public int add(long key) {
+		int k = slot(key);
+		for (int res; (res = table[k]) != NONE; k = (k + 1) & (table.length - 1))
+			if (keys[res] == key)
+				return res;
+		if (size == keys.length)
+			keys = Arrays.copyOf(keys, 2 * size);
+		keys[size] = key;
+		table[k] = size;
+		if (++size * 2 > table.length)
+			rehash();
+		return size - 1;
+	}
+
+	/**
+	 * Key with the given identifier.
+	 */
+	public long getKey(int id) {
+		return keys[id];
+	}
+
+	public long[] keys() {
+		return Arrays.copyOf(keys, size);
+	}
+
+	private int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32)) & (table.length - 1);
+	}
+
+	private void rehash() {
+		table = new int[2 * table.length];
+		Arrays.fill(table, NONE);
+		for (int id = 0; id < size; ++id) {
+			int k = slot(keys[id]);
+			while (table[k] != NONE)
+				k = (k + 1) & (table.length - 1);
+			table[k] = id;
+		}
+	}
+
+	private static int tableSize(int expected) {
+		return Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) * 2;
+	}
+}
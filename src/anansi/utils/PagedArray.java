@@ -0,0 +1,59 @@
+package anansi.utils;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-length array split into pages of type P that are shared between forks and copied on the first write,
+ * so that forking costs time proportional to the number of pages, and forks diverging in few places share most
+ * of their memory. Pages that were never written are not allocated (all their elements are 0).
+ *
+ * @author Marcin Waniek
+ */
+public abstract class PagedArray<P> {
+
+	protected static final int PAGE_BITS = 10;
+	protected static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+	protected P[] pages;
+	private boolean[] owned;
+	private int length;
+
+	protected PagedArray(P[] pages, int length) {
+		this.pages = pages;
+		this.owned = new boolean[pages.length];
+		this.length = length;
+	}
+
+	/**
+	 * Copy of the array; pages become shared and are copied by whichever of the two arrays writes first.
+	 */
+	protected PagedArray(PagedArray<P> a) {
+		this.pages = a.pages.clone();
+		this.owned = new boolean[pages.length];
+		this.length = a.length;
+		Arrays.fill(a.owned, false);
+	}
+
+	protected static int pagesCount(int length) {
+		return (length + PAGE_SIZE - 1) >>> PAGE_BITS;
+	}
+
+	protected abstract P newPage();
+
+	protected abstract P copyPage(P page);
+
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Page p owned by this array, allocated or copied if necessary.
+	 */
+	protected P page(int p) {
+		if (!owned[p]) {
+			pages[p] = pages[p] == null ? newPage() : copyPage(pages[p]);
+			owned[p] = true;
+		}
+		return pages[p];
+	}
+}
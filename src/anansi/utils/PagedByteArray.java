@@ -0,0 +1,54 @@
+package anansi.utils;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-length array of bytes with copy-on-write pages (see {@link PagedArray}).
+ *
+ * @author Marcin Waniek
+ */
+public class PagedByteArray extends PagedArray<byte[]> {
+
+	public PagedByteArray(int length) {
+		super(new byte[pagesCount(length)][], length);
+	}
+
+	private PagedByteArray(PagedByteArray a) {
+		super(a);
+	}
+
+	/**
+	 * Returns a copy of the array; pages become shared and are copied by whichever of the two arrays writes first.
+	 */
+	public PagedByteArray fork() {
+		return new PagedByteArray(this);
+	}
+
+	public byte get(int i) {
+		byte[] page = pages[i >>> PAGE_BITS];
+		return page == null ? 0 : page[i & (PAGE_SIZE - 1)];
+	}
+
+	public void set(int i, byte v) {
+		page(i >>> PAGE_BITS)[i & (PAGE_SIZE - 1)] = v;
+	}
+
+	/**
+	 * Sets all elements to v.
+	 */
+	public void fill(byte v) {
+		for (int p = 0; p < pages.length; ++p)
+			if (v != 0 || pages[p] != null)
+				Arrays.fill(page(p), v);
+	}
+
+	@Override
+	protected byte[] newPage() {
+		return new byte[PAGE_SIZE];
+	}
+
+	@Override
+	protected byte[] copyPage(byte[] page) {
+		return page.clone();
+	}
+}
@@ -0,0 +1,54 @@
+package anansi.utils;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-length array of integers with copy-on-write pages (see {@link PagedArray}).
+ *
+ * @author Marcin Waniek
+ */
+public class PagedIntArray extends PagedArray<int[]> {
+
+	public PagedIntArray(int length) {
+		super(new int[pagesCount(length)][], length);
+	}
+
+	private PagedIntArray(PagedIntArray a) {
+		super(a);
+	}
+
+	/**
+	 * Returns a copy of the array; pages become shared and are copied by whichever of the two arrays writes first.
+	 */
+	public PagedIntArray fork() {
+		return new PagedIntArray(this);
+	}
+
+	public int get(int i) {
+		int[] page = pages[i >>> PAGE_BITS];
+		return page == null ? 0 : page[i & (PAGE_SIZE - 1)];
+	}
+
+	public void set(int i, int v) {
+		page(i >>> PAGE_BITS)[i & (PAGE_SIZE - 1)] = v;
+	}
+
+	/**
+	 * Sets all elements to v.
+	 */
+	public void fill(int v) {
+		for (int p = 0; p < pages.length; ++p)
+			if (v != 0 || pages[p] != null)
+				Arrays.fill(page(p), v);
+	}
+
+	@Override
+	protected int[] newPage() {
+		return new int[PAGE_SIZE];
+	}
+
+	@Override
+	protected int[] copyPage(int[] page) {
+		return page.clone();
+	}
+}
@@ -1,5 +1,7 @@
 package anansi.utils;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
@@ -9,19 +11,29 @@ import java.util.stream.IntStream;
 
 /**
  * Probability distribution over a set of integers.
+ * Weights are kept in a {@link FenwickSampler}, so updates and draws take O(log n) time; until the first update,
+ * draws take O(1) time with an {@link AliasSampler}.
  * 
  * @author Marcin Waniek
  */
 public class ProbabilityDistribution<T> {
 
+	private static final int FILTER_TRIES = 16;
+	
 	private List<T> values;
 	private Function<T,Double> probability;
-	private double[] acc;
+	private FenwickSampler weights;
+	private AliasSampler alias;
+	private Map<T,Integer> index;
+	private int[] next;
 	
 	public ProbabilityDistribution(List<T> values, Function<T,Double> probability) {
 		this.values = values;
 		this.probability = probability;
-		this.acc = null;
+		this.weights = null;
+		this.alias = null;
+		this.index = null;
+		this.next = null;
 	}
 	
 	public ProbabilityDistribution(List<T> values, Map<T,Double> probability) {
@@ -29,76 +41,127 @@ public class ProbabilityDistribution<T> {
 	}
 	
 	public T draw() {
-		computeAccIfNotReady();
-		return drawFromAcc(acc);
+		computeWeightsIfNotReady();
+		int i = alias != null ? alias.draw() : weights.draw();
+		return i < 0 ? null : values.get(i);
 	}
 	
+	/**
+	 * Draws from the distribution restricted to values satisfying the filter. Draws from the whole distribution
+	 * are rejected a few times first, which gives the same distribution without testing all values; otherwise,
+	 * values not satisfying the filter are excluded for a single draw.
+	 */
 	public T drawFiltered(Predicate<T> filter) {
-		T test = draw();
-		if (test == null || filter.test(test))
-			return test;
-		double[] a = new double[values.size()];
+		for (int k = 0; k < FILTER_TRIES; ++k) {
+			T test = draw();
+			if (test == null || filter.test(test))
+				return test;
+		}
+		int[] excluded = new int[16];
+		double[] excludedWeights = new double[16];
+		int count = 0;
 		int i = 0;
-		double deltaAcc = 0.;
 		for (T t : values) {
-			if (!filter.test(t))
-				deltaAcc -= acc[i] - (i > 0 ? acc[i-1] : 0.);
-			a[i] = acc[i] + deltaAcc;
+			if (weights.get(i) != 0. && !filter.test(t)) {
+				if (count == excluded.length) {
+					excluded = Arrays.copyOf(excluded, 2 * count);
+					excludedWeights = Arrays.copyOf(excludedWeights, 2 * count);
+				}
+				excluded[count] = i;
+				excludedWeights[count++] = weights.get(i);
+				weights.set(i, 0.);
+			}
 			++i;
 		}
-		return drawFromAcc(a);
+		int res = weights.draw();
+		for (int k = 0; k < count; ++k)
+			weights.set(excluded[k], excludedWeights[k]);
+		return res < 0 ? null : values.get(res);
 	}
 	
+	/**
+	 * Draws from the distribution with weights changed by the given function (applied to every value).
+	 */
 	public T drawUpdated(BiFunction<T,Double,Double> update) {
-		computeAccIfNotReady();
+		computeWeightsIfNotReady();
 		double[] a = new double[values.size()];
 		int i = 0;
 		for (T t : values) {
-			a[i] = update.apply(t, acc[i] - (i > 0 ? acc[i-1] : 0.)) + (i > 0 ? a[i-1] : 0.);
+			a[i] = update.apply(t, weights.get(i)) + (i > 0 ? a[i-1] : 0.);
 			++i;
 		}
 		return drawFromAcc(a);
 	}
 	
 	public void update(T t, double delta) {
-		update(elem -> elem.equals(t) , delta);
+		computeWeightsIfNotReady();
+		computeIndexIfNotReady();
+		Integer first = index.get(t);
+		for (int i = first == null ? -1 : first; i >= 0; i = next[i])
+			weights.add(i, delta);
+		alias = null;
 	}
 	
 	public void update(Predicate<T> filter, double delta) {
-		computeAccIfNotReady();
-		double deltaAcc = 0.;
-		for (int i = 0; i < acc.length; ++i) {
-			if (filter.test(values.get(i)))
-				deltaAcc += delta;
-			acc[i] += deltaAcc;
+		computeWeightsIfNotReady();
+		int i = 0;
+		for (T t : values) {
+			if (filter.test(t))
+				weights.add(i, delta);
+			++i;
 		}
+		alias = null;
 	}
 	
 	public void reset() {
-		acc = null;
-		computeAccIfNotReady();
+		weights = null;
+		alias = null;
+		computeWeightsIfNotReady();
 	}
 	
 	public void filter(Predicate<T> filter) {
 		values = Utils.asList(values.stream().filter(filter));
-		acc = null;
+		weights = null;
+		alias = null;
+		index = null;
+		next = null;
 	}
 	
-	private void computeAccIfNotReady() {
-		if (acc == null) {
-			acc = new double[values.size()];
+	private void computeWeightsIfNotReady() {
+		if (weights == null) {
+			double[] w = new double[values.size()];
 			int i = 0;
 			for (T t : values)
-				acc[i++] = probability.apply(t);
-			for (int j = 1; j < acc.length; ++j)
-				acc[j] += acc[j - 1];
+				w[i++] = probability.apply(t);
+			weights = new FenwickSampler(w);
+			alias = new AliasSampler(w);
+		}
+	}
+	
+	/**
+	 * Index of the first occurrence of every value, with occurrences of equal values linked in the next array.
+	 */
+	private void computeIndexIfNotReady() {
+		if (index == null) {
+			index = new HashMap<>();
+			next = new int[values.size()];
+			int[] last = new int[values.size()];
+			int i = 0;
+			for (T t : values) {
+				next[i] = -1;
+				Integer first = index.putIfAbsent(t, i);
+				if (first != null)
+					next[last[first]] = i;
+				last[first == null ? i : first] = i;
+				++i;
+			}
 		}
 	}
 	
 	private T drawFromAcc(double[] a) {
 		if (a[a.length - 1] <= 0.)
 			return null;
-		double v = Utils.RAND.nextDouble() * a[a.length - 1];
+		double v = RandomSource.get().nextDouble() * a[a.length - 1];
 		if (v <= a[0])
 			return values.get(0);
 		int l = 0;
@@ -0,0 +1,95 @@
+package anansi.utils;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Source of randomness for all stochastic components.
+ * Every thread draws from its own generator, derived from a root seed (taken from the anansi.seed system property,
+ * if present) and a stream number. Streams for particular replicates can be derived deterministically from the root
+ * seed and their identifiers, and bound to the current thread for the duration of a computation.
+ *
+ * @author Marcin Waniek
+ */
+public class RandomSource {
+
+	public static final String SEED_PROPERTY = "anansi.seed";
+	public static final String ALGORITHM = "L64X128MixRandom";
+
+	private static volatile long rootSeed = Long.getLong(SEED_PROPERTY, System.nanoTime() ^ 0x5DEECE66DL);
+	private static final AtomicLong streams = new AtomicLong();
+	private static final ThreadLocal<RandomGenerator> current =
+			ThreadLocal.withInitial(() -> create(mix(rootSeed, streams.incrementAndGet())));
+
+	/**
+	 * Generator bound to the current thread.
+	 */
+	public static RandomGenerator get() {
+		return current.get();
+	}
+
+	public static long getRootSeed() {
+		return rootSeed;
+	}
+
+	/**
+	 * Sets the root seed. Generators of threads that already used randomness are not affected,
+	 * except for the current thread, whose generator is recreated.
+	 */
+	public static void setRootSeed(long seed) {
+		rootSeed = seed;
+		streams.set(0);
+		current.set(create(mix(rootSeed, streams.incrementAndGet())));
+	}
+
+	/**
+	 * Generator determined by the root seed and the given identifiers (e.g., experiment, parameters, replicate).
+	 */
+	public static RandomGenerator derive(long... ids) {
+		long seed = rootSeed;
+		for (long id : ids)
+			seed = mix(seed, id);
+		return create(seed);
+	}
+
+	public static RandomGenerator create(long seed) {
+		try {
+			return RandomGeneratorFactory.of(ALGORITHM).create(seed);
+		} catch (IllegalArgumentException e) {
+			return new SplittableRandom(seed);
+		}
+	}
+
+	/**
+	 * Runs the computation with the given generator bound to the current thread.
+	 */
+	public static <T> T with(RandomGenerator rand, Supplier<T> computation) {
+		RandomGenerator prev = current.get();
+		current.set(rand);
+		try {
+			return computation.get();
+		} finally {
+			current.set(prev);
+		}
+	}
+
+	public static void with(RandomGenerator rand, Runnable computation) {
+		with(rand, () -> {
+			computation.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Combines a seed with an identifier (using the SplitMix64 finalizer).
+	 */
+	private static long mix(long seed, long id) {
+		long z = seed + (id + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
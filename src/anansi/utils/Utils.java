@@ -13,9 +13,11 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.PrimitiveIterator;
 import java.util.function.Function;
+import java.util.function.IntToDoubleFunction;
 import java.util.function.Predicate;
+import java.util.random.RandomGenerator;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -30,7 +32,6 @@ import org.apache.commons.math3.util.CombinatoricsUtils;
  */
 public class Utils {
 
-	public static final Random RAND = new Random();
 	public static final String WHITESPACE = "\\s+";
 	
 	/**
@@ -66,7 +67,7 @@ public class Utils {
 	}
 	
 	public static <T> T getRandom(List<T> l) {
-		return l.size() > 0 ? l.get(RAND.nextInt(l.size())) : null;
+		return l.size() > 0 ? l.get(RandomSource.get().nextInt(l.size())) : null;
 	}
 	
 	public static <T> T getRandom(Stream<T> s) {
@@ -74,7 +75,7 @@ public class Utils {
 	}
 	
 	public static <T> T getRandom(Stream<T> s, int size) {
-		return s.skip(RAND.nextInt(size)).findFirst().orElse(null);
+		return s.skip(RandomSource.get().nextInt(size)).findFirst().orElse(null);
 	}
 	
 	/**
@@ -113,7 +114,7 @@ public class Utils {
 				resVal = val;
 			} else if (val == resVal){
 				++equalCount;
-				if (RAND.nextDouble() >= (double)equalCount/(equalCount + 1)){
+				if (RandomSource.get().nextDouble() >= (double)equalCount/(equalCount + 1)){
 					res = elem;
 					resVal = val;
 				}
@@ -121,6 +122,31 @@ public class Utils {
 		}
 	}
 	
+	/**
+	 * Finds the element of stream that maximizes given function (-1 if the stream is empty).
+	 */
+	public static int argmax(IntStream s, IntToDoubleFunction f){
+		int res = -1;
+		double resVal = 0;
+		int equalCount = 0;
+		boolean found = false;
+		for (PrimitiveIterator.OfInt it = s.iterator(); it.hasNext();) {
+			int i = it.nextInt();
+			double val = f.applyAsDouble(i);
+			if (!found || val > resVal){
+				found = true;
+				equalCount = 0;
+				res = i;
+				resVal = val;
+			} else if (val == resVal){
+				++equalCount;
+				if (RandomSource.get().nextDouble() >= (double)equalCount/(equalCount + 1))
+					res = i;
+			}
+		}
+		return res;
+	}
+	
 	/**
 	 * Finds the element of collection that maximizes given function.
 	 */
@@ -135,6 +161,13 @@ public class Utils {
 		return argmax(s, t -> -f.apply(t).doubleValue());
 	}
 	
+	/**
+	 * Finds the element of stream that minimizes given function (-1 if the stream is empty).
+	 */
+	public static int argmin(IntStream s, IntToDoubleFunction f){
+		return argmax(s, i -> -f.applyAsDouble(i));
+	}
+	
 	public static <T> T last(T[] a) {
 		return a[a.length - 1];
 	}
@@ -518,9 +551,31 @@ public class Utils {
 		out.flush();
 	}
 	
+	/**
+	 * Shuffles the list in place using the generator bound to the current thread.
+	 */
+	public static <T> void shuffle(List<T> l) {
+		RandomGenerator rand = RandomSource.get();
+		for (int i = l.size() - 1; i > 0; --i)
+			Collections.swap(l, i, rand.nextInt(i + 1));
+	}
+	
+	/**
+	 * Shuffles the first len elements of the array.
+	 */
+	public static void shuffle(int[] a, int len) {
+		RandomGenerator rand = RandomSource.get();
+		for (int i = len - 1; i > 0; --i) {
+			int j = rand.nextInt(i + 1);
+			int x = a[i];
+			a[i] = a[j];
+			a[j] = x;
+		}
+	}
+	
 	public static <T> Collector<T, ?, Stream<T>> shuffle() {
         return Collectors.collectingAndThen(Collectors.toList(), collected -> {
-            Collections.shuffle(collected);
+            shuffle(collected);
             return collected.stream();
         });
     }